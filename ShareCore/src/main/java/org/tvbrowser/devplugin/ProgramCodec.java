@@ -0,0 +1,319 @@
+/*
+ * Plugin Interface for TV-Browser for Android
+ * Copyright (c) 2026 agent (agent@local)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software 
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowser.devplugin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A compact binary format for batches of programs, used to exchange large
+ * batches through a shared file instead of a Parcel.
+ * <p>
+ * The data starts with a header of magic number, version and program count.
+ * Each program follows with its ids, times, a presence bitmask and its
+ * present Strings in UTF-8. The name of a channel is only written for the
+ * first program of the channel in a batch.
+ * <p>
+ * This class has no Android dependencies, so it can be used and measured
+ * on any JVM.
+ * 
+ * @author agent
+ */
+public final class ProgramCodec {
+  /* "TVBP" */
+  private static final int MAGIC = 0x54564250;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 12;
+  private static final int COUNT_POSITION = 8;
+  
+  /* The size of a program without Strings: ids, times, channel id and presence bitmask */
+  private static final int MIN_PROGRAM_SIZE = 8 * 3 + 4 + 1;
+  
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  
+  /* The presence flags of a program */
+  private static final int HAS_TITLE = 1;
+  private static final int HAS_SHORT_DESCRIPTION = 2;
+  private static final int HAS_DESCRIPTION = 4;
+  private static final int HAS_EPISODE_TITLE = 8;
+  private static final int HAS_CHANNEL_NAME = 16;
+  
+  /**
+   * Receives the programs of a batch.
+   */
+  public interface Receiver {
+    /**
+     * Called for every program of the batch in the order they were written.
+     * <p>
+     * @param id The unique id of the program.
+     * @param startTime The start time of the program in milliseconds since 1970 in UTC timezone.
+     * @param endTime The end time of the program in milliseconds since 1970 in UTC timezone.
+     * @param title The title of the program.
+     * @param shortDescription The short description of the program or <code>null</code>.
+     * @param description The full description of the program or <code>null</code>.
+     * @param episodeTitle The episode title of the program or <code>null</code>.
+     * @param channelId The unique id of the channel of the program.
+     * @param channelName The name of the channel of the program.
+     */
+    void onProgram(long id, long startTime, long endTime, String title, String shortDescription, String description, String episodeTitle, int channelId, String channelName);
+  }
+  
+  /**
+   * Writes a batch of programs into a growing buffer.
+   */
+  public static final class Writer {
+    private ByteBuffer mBuffer;
+    private int mCount;
+    private final ChannelNames mChannels;
+    
+    /**
+     * Creates an instance of this class.
+     * <p>
+     * @param expectedCount The expected number of programs, used for the initial buffer size.
+     */
+    public Writer(int expectedCount) {
+      mBuffer = ByteBuffer.allocate(HEADER_SIZE + Math.max(16, expectedCount) * 128);
+      mBuffer.putInt(MAGIC).putInt(VERSION).putInt(0);
+      mChannels = new ChannelNames();
+    }
+    
+    /**
+     * Adds a program to the batch.
+     * <p>
+     * @param id The unique id of the program.
+     * @param startTime The start time of the program in milliseconds since 1970 in UTC timezone.
+     * @param endTime The end time of the program in milliseconds since 1970 in UTC timezone.
+     * @param title The title of the program.
+     * @param shortDescription The short description of the program or <code>null</code>.
+     * @param description The full description of the program or <code>null</code>.
+     * @param episodeTitle The episode title of the program or <code>null</code>.
+     * @param channelId The unique id of the channel of the program.
+     * @param channelName The name of the channel of the program.
+     */
+    public void add(long id, long startTime, long endTime, String title, String shortDescription, String description, String episodeTitle, int channelId, String channelName) {
+      byte[] titleData = encode(title);
+      byte[] shortDescriptionData = encode(shortDescription);
+      byte[] descriptionData = encode(description);
+      byte[] episodeTitleData = encode(episodeTitle);
+      byte[] channelNameData = mChannels.get(channelId) == null ? encode(channelName) : null;
+      
+      if(channelNameData != null) {
+        mChannels.put(channelId, channelName);
+      }
+      
+      int fields = 0;
+      int size = MIN_PROGRAM_SIZE;
+      
+      if(titleData != null) {
+        fields |= HAS_TITLE;
+        size += 4 + titleData.length;
+      }
+      if(shortDescriptionData != null) {
+        fields |= HAS_SHORT_DESCRIPTION;
+        size += 4 + shortDescriptionData.length;
+      }
+      if(descriptionData != null) {
+        fields |= HAS_DESCRIPTION;
+        size += 4 + descriptionData.length;
+      }
+      if(episodeTitleData != null) {
+        fields |= HAS_EPISODE_TITLE;
+        size += 4 + episodeTitleData.length;
+      }
+      if(channelNameData != null) {
+        fields |= HAS_CHANNEL_NAME;
+        size += 4 + channelNameData.length;
+      }
+      
+      ensureCapacity(size);
+      
+      mBuffer.putLong(id).putLong(startTime).putLong(endTime).putInt(channelId).put((byte)fields);
+      
+      put(titleData);
+      put(shortDescriptionData);
+      put(descriptionData);
+      put(episodeTitleData);
+      put(channelNameData);
+      
+      mCount++;
+    }
+    
+    /**
+     * @return The number of added programs.
+     */
+    public int getCount() {
+      return mCount;
+    }
+    
+    /**
+     * Finishes the batch, no programs can be added afterwards.
+     * <p>
+     * @return The encoded batch, from position 0 to its limit.
+     */
+    public ByteBuffer finish() {
+      mBuffer.putInt(COUNT_POSITION, mCount);
+      mBuffer.flip();
+      
+      return mBuffer;
+    }
+    
+    private void put(byte[] data) {
+      if(data != null) {
+        mBuffer.putInt(data.length).put(data);
+      }
+    }
+    
+    private void ensureCapacity(int size) {
+      if(mBuffer.remaining() < size) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(mBuffer.capacity() * 2, mBuffer.position() + size));
+        mBuffer.flip();
+        buffer.put(mBuffer);
+        mBuffer = buffer;
+      }
+    }
+  }
+  
+  private ProgramCodec() {}
+  
+  /**
+   * Reads all programs of an encoded batch.
+   * <p>
+   * @param data The encoded batch, read from its position to its limit.
+   * @param receiver The receiver of the programs.
+   * @return The number of read programs.
+   * @throws IOException If the data is no valid batch.
+   */
+  public static int read(ByteBuffer data, Receiver receiver) throws IOException {
+    if(data.remaining() < HEADER_SIZE || data.getInt() != MAGIC) {
+      throw new IOException("No program batch");
+    }
+    
+    int version = data.getInt();
+    
+    if(version != VERSION) {
+      throw new IOException("Unknown program batch version " + version);
+    }
+    
+    int count = data.getInt();
+    
+    /* A corrupt count must not make the caller wait for programs that can't be there */
+    if(count < 0 || count > data.remaining() / MIN_PROGRAM_SIZE) {
+      throw new IOException("Corrupt program batch count " + count);
+    }
+    
+    ChannelNames channels = new ChannelNames();
+    
+    try {
+      for(int i = 0; i < count; i++) {
+        long id = data.getLong();
+        long startTime = data.getLong();
+        long endTime = data.getLong();
+        int channelId = data.getInt();
+        int fields = data.get();
+        
+        String title = (fields & HAS_TITLE) != 0 ? decode(data) : null;
+        String shortDescription = (fields & HAS_SHORT_DESCRIPTION) != 0 ? decode(data) : null;
+        String description = (fields & HAS_DESCRIPTION) != 0 ? decode(data) : null;
+        String episodeTitle = (fields & HAS_EPISODE_TITLE) != 0 ? decode(data) : null;
+        String channelName;
+        
+        if((fields & HAS_CHANNEL_NAME) != 0) {
+          channelName = decode(data);
+          channels.put(channelId, channelName);
+        }
+        else {
+          channelName = channels.get(channelId);
+        }
+        
+        receiver.onProgram(id, startTime, endTime, title, shortDescription, description, episodeTitle, channelId, channelName);
+      }
+    } catch(RuntimeException e) {
+      /* BufferUnderflowException of a truncated batch */
+      throw new IOException("Corrupt program batch", e);
+    }
+    
+    return count;
+  }
+  
+  private static byte[] encode(String value) {
+    return value != null ? value.getBytes(UTF_8) : null;
+  }
+  
+  private static String decode(ByteBuffer data) throws IOException {
+    int length = data.getInt();
+    String value;
+    
+    /* Checked before allocating, a corrupt length must not exhaust the memory */
+    if(length < 0 || length > data.remaining()) {
+      throw new IOException("Corrupt program batch String length " + length);
+    }
+    
+    if(data.hasArray()) {
+      value = new String(data.array(), data.arrayOffset() + data.position(), length, UTF_8);
+      data.position(data.position() + length);
+    }
+    else {
+      byte[] bytes = new byte[length];
+      data.get(bytes);
+      value = new String(bytes, UTF_8);
+    }
+    
+    return value;
+  }
+  
+  /*
+   * The channel names of a batch by channel id, kept in sorted arrays
+   * to avoid boxing the ids.
+   */
+  private static final class ChannelNames {
+    private int[] mIds = new int[16];
+    private String[] mNames = new String[16];
+    private int mSize;
+    
+    private String get(int channelId) {
+      int index = Arrays.binarySearch(mIds, 0, mSize, channelId);
+      return index >= 0 ? mNames[index] : null;
+    }
+    
+    private void put(int channelId, String channelName) {
+      int index = Arrays.binarySearch(mIds, 0, mSize, channelId);
+      
+      if(index >= 0) {
+        mNames[index] = channelName;
+        return;
+      }
+      
+      index = -(index + 1);
+      
+      if(mSize == mIds.length) {
+        mIds = Arrays.copyOf(mIds, mSize * 2);
+        mNames = Arrays.copyOf(mNames, mSize * 2);
+      }
+      
+      System.arraycopy(mIds, index, mIds, index + 1, mSize - index);
+      System.arraycopy(mNames, index, mNames, index + 1, mSize - index);
+      mIds[index] = channelId;
+      mNames[index] = channelName;
+      mSize++;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts calls and their latency in fixed power of two buckets.
+ * <p>
+ * Recording a call neither locks nor allocates, so it can be done on
+ * every binder call. Percentiles are reported as the upper bound of
+ * the bucket that contains them, so they are exact to a factor of two.
+ *
+ * @author agent
+ */
+public final class CallMetrics {
+  /* Bucket i counts latencies below 2^i nanoseconds, the last one all larger latencies */
+  private static final int BUCKET_COUNT = 40;
+  
+  private final String[] mNames;
+  private final AtomicLongArray mCounts;
+  private final AtomicLongArray mTotalNanos;
+  private final AtomicLongArray mMaxNanos;
+  private final AtomicLongArray mBuckets;
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param names The names of the recorded calls, the index of a name is the id of its call.
+   */
+  public CallMetrics(String[] names) {
+    mNames = names.clone();
+    mCounts = new AtomicLongArray(names.length);
+    mTotalNanos = new AtomicLongArray(names.length);
+    mMaxNanos = new AtomicLongArray(names.length);
+    mBuckets = new AtomicLongArray(names.length * BUCKET_COUNT);
+  }
+  
+  /**
+   * Records a finished call, unknown call ids are ignored.
+   * <p>
+   * @param call The id of the call.
+   * @param startNanos The value of {@link System#nanoTime()} at the start of the call.
+   */
+  public void record(int call, long startNanos) {
+    if(call < 0 || call >= mNames.length) {
+      return;
+    }
+    
+    long nanos = Math.max(0, System.nanoTime() - startNanos);
+    int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    
+    mCounts.incrementAndGet(call);
+    mTotalNanos.addAndGet(call, nanos);
+    mBuckets.incrementAndGet(call * BUCKET_COUNT + bucket);
+    
+    long max;
+    
+    while(nanos > (max = mMaxNanos.get(call)) && !mMaxNanos.compareAndSet(call, max, nanos)) {
+      /* Another thread changed the maximum, compare again */
+    }
+  }
+  
+  /**
+   * @return The number of known calls.
+   */
+  public int getCallCount() {
+    return mNames.length;
+  }
+  
+  /**
+   * @param call The id of the call.
+   * @return The name of the call.
+   */
+  public String getName(int call) {
+    return mNames[call];
+  }
+  
+  /**
+   * @param call The id of the call.
+   * @return How often the call was recorded.
+   */
+  public long getCount(int call) {
+    return mCounts.get(call);
+  }
+  
+  /**
+   * Gets the latency below which the given part of the calls finished.
+   * <p>
+   * @param call The id of the call.
+   * @param percentile The percentile, between 0 and 100.
+   * @return The upper bound of the bucket of the percentile in nanoseconds or 0 if there were no calls.
+   */
+  public long getPercentileNanos(int call, double percentile) {
+    long count = 0;
+    
+    for(int i = 0; i < BUCKET_COUNT; i++) {
+      count += mBuckets.get(call * BUCKET_COUNT + i);
+    }
+    
+    long rank = (long)Math.ceil(count * percentile / 100);
+    long seen = 0;
+    
+    for(int i = 0; i < BUCKET_COUNT && count > 0; i++) {
+      seen += mBuckets.get(call * BUCKET_COUNT + i);
+      
+      if(seen >= Math.max(1, rank)) {
+        return 1L << i;
+      }
+    }
+    
+    return 0;
+  }
+  
+  /**
+   * Creates a one line summary of the given call.
+   * <p>
+   * @param call The id of the call.
+   * @return The summary with the count, mean, percentiles and maximum of the call.
+   */
+  public String format(int call) {
+    long count = mCounts.get(call);
+    
+    return String.format(Locale.US, "count=%d mean=%.1fus p50<=%.1fus p90<=%.1fus p99<=%.1fus max=%.1fus",
+        count, count > 0 ? mTotalNanos.get(call) / 1000.0 / count : 0.0,
+        getPercentileNanos(call, 50) / 1000.0, getPercentileNanos(call, 90) / 1000.0,
+        getPercentileNanos(call, 99) / 1000.0, mMaxNanos.get(call) / 1000.0);
+  }
+  
+  /**
+   * Writes the summaries of all recorded calls.
+   * <p>
+   * @param out The writer to write to.
+   */
+  public void dump(PrintWriter out) {
+    for(int call = 0; call < mNames.length; call++) {
+      if(mCounts.get(call) > 0) {
+        out.print(mNames[call]);
+        out.print(": ");
+        out.println(format(call));
+      }
+    }
+  }
+  
+  /**
+   * Removes all recorded calls.
+   */
+  public void reset() {
+    for(int call = 0; call < mNames.length; call++) {
+      mCounts.set(call, 0);
+      mTotalNanos.set(call, 0);
+      mMaxNanos.set(call, 0);
+    }
+    
+    for(int i = 0; i < mBuckets.length(); i++) {
+      mBuckets.set(i, 0);
+    }
+  }
+}
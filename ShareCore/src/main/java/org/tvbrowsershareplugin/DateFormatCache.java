@@ -0,0 +1,134 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.text.DateFormat;
+import java.util.Date;
+
+/**
+ * A cache for the date and time formats of the share texts.
+ * <p>
+ * DateFormat instances are not thread safe, so every thread gets its own
+ * formats, created on first use and reused until {@link #invalidate()} is
+ * called. Threads never wait for each other.
+ * <p>
+ * The formats are not keyed by locale, time zone or 24 hour setting, they
+ * keep the values they were created with. The owner has to call
+ * {@link #invalidate()} whenever one of them changes.
+ *
+ * @author agent
+ */
+public final class DateFormatCache {
+  /**
+   * Creates the formats for the current locale and settings.
+   */
+  public interface Factory {
+    /**
+     * @return A new format for the date of a program.
+     */
+    DateFormat createDateFormat();
+    
+    /**
+     * @return A new format for the start and end time of a program.
+     */
+    DateFormat createTimeFormat();
+  }
+  
+  private static final class Formats {
+    private final int mGeneration;
+    private final DateFormat mDateFormat;
+    private final DateFormat mTimeFormat;
+    private final Date mDate;
+    
+    private Formats(int generation, Factory factory) {
+      mGeneration = generation;
+      mDateFormat = factory.createDateFormat();
+      mTimeFormat = factory.createTimeFormat();
+      mDate = new Date();
+    }
+  }
+  
+  private final Factory mFactory;
+  private final ThreadLocal<Formats> mFormats;
+  private volatile int mGeneration;
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param factory The factory for the formats.
+   */
+  public DateFormatCache(Factory factory) {
+    mFactory = factory;
+    mFormats = new ThreadLocal<Formats>();
+  }
+  
+  /**
+   * Drops the formats of all threads, they are recreated on next use.
+   * Only called from the main thread, so the increment needs no lock.
+   */
+  public void invalidate() {
+    mGeneration++;
+  }
+  
+  /**
+   * Gets the current generation of the formats, it changes with every
+   * {@link #invalidate()}, so texts formatted before can be recognized.
+   * <p>
+   * @return The current generation of the formats.
+   */
+  public int getGeneration() {
+    return mGeneration;
+  }
+  
+  /**
+   * Formats the date of the given time.
+   * <p>
+   * @param time The time in milliseconds since 1970 in UTC timezone.
+   * @return The formatted date.
+   */
+  public String formatDate(long time) {
+    Formats formats = getFormats();
+    formats.mDate.setTime(time);
+    
+    return formats.mDateFormat.format(formats.mDate);
+  }
+  
+  /**
+   * Formats the time of day of the given time.
+   * <p>
+   * @param time The time in milliseconds since 1970 in UTC timezone.
+   * @return The formatted time.
+   */
+  public String formatTime(long time) {
+    Formats formats = getFormats();
+    formats.mDate.setTime(time);
+    
+    return formats.mTimeFormat.format(formats.mDate);
+  }
+  
+  private Formats getFormats() {
+    int generation = mGeneration;
+    Formats formats = mFormats.get();
+    
+    if(formats == null || formats.mGeneration != generation) {
+      formats = new Formats(generation, mFactory);
+      mFormats.set(formats);
+    }
+    
+    return formats;
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+/**
+ * A bounded log of the changes of the marked program ids.
+ * <p>
+ * Every change increases the generation by one, so a client that knows the
+ * generation of its copy of the markings can ask for the changes since then
+ * instead of reading all ids again. If the client is older than the oldest
+ * logged change, it gets a snapshot of all ids.
+ * <p>
+ * Generations are only comparable within one log. Every log has a random
+ * epoch that clients send with their generation, a client of another log,
+ * e. g. from before a restart of the process, gets a snapshot.
+ *
+ * @author agent
+ */
+public final class MarkingChangeLog {
+  private static final long[] EMPTY = new long[0];
+  
+  private static final byte OP_ADD = 1;
+  private static final byte OP_REMOVE = 2;
+  private static final byte OP_REMOVE_BELOW = 3;
+  
+  /**
+   * The changes since a generation.
+   * <p>
+   * To apply the changes, ids below {@link #getRemovedBelow()} are removed first,
+   * then the removed ids and last the added ids. A snapshot replaces all ids.
+   */
+  public static final class Changes {
+    private final long mEpoch;
+    private final long mGeneration;
+    private final boolean mSnapshot;
+    private final long mRemovedBelow;
+    private final long[] mAdded;
+    private final long[] mRemoved;
+    
+    private Changes(long epoch, long generation, boolean snapshot, long removedBelow, long[] added, long[] removed) {
+      mEpoch = epoch;
+      mGeneration = generation;
+      mSnapshot = snapshot;
+      mRemovedBelow = removedBelow;
+      mAdded = added;
+      mRemoved = removed;
+    }
+    
+    /**
+     * @return The epoch of the log the changes were created by.
+     */
+    public long getEpoch() {
+      return mEpoch;
+    }
+    
+    /**
+     * @return The generation the changes lead to.
+     */
+    public long getGeneration() {
+      return mGeneration;
+    }
+    
+    /**
+     * @return <code>true</code> if the added ids are all marked ids.
+     */
+    public boolean isSnapshot() {
+      return mSnapshot;
+    }
+    
+    /**
+     * @return The id all smaller ids were removed below or <code>-1</code> if there is none.
+     */
+    public long getRemovedBelow() {
+      return mRemovedBelow;
+    }
+    
+    /**
+     * @return The added ids.
+     */
+    public long[] getAdded() {
+      return mAdded;
+    }
+    
+    /**
+     * @return The removed ids.
+     */
+    public long[] getRemoved() {
+      return mRemoved;
+    }
+  }
+  
+  /* Ring buffer of the changes, the change at index (mStart + i) % capacity has the generation mOldestGeneration + i + 1 */
+  private final byte[] mOps;
+  private final long[] mIds;
+  private int mStart;
+  private int mCount;
+  
+  /* Identifies this log, never 0 */
+  private final long mEpoch;
+  
+  /* The generation before the oldest logged change */
+  private long mOldestGeneration;
+  private long mGeneration;
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param capacity The maximum number of logged changes.
+   */
+  public MarkingChangeLog(int capacity) {
+    mOps = new byte[capacity];
+    mIds = new long[capacity];
+    
+    Random random = new Random();
+    long epoch;
+    
+    do {
+      epoch = random.nextLong();
+    } while(epoch == 0);
+    
+    mEpoch = epoch;
+  }
+  
+  /**
+   * @return The epoch that identifies this log.
+   */
+  public long getEpoch() {
+    return mEpoch;
+  }
+  
+  /**
+   * @return The current generation of the markings.
+   */
+  public synchronized long getGeneration() {
+    return mGeneration;
+  }
+  
+  /**
+   * Logs that the given id was marked.
+   * <p>
+   * @param programId The marked id.
+   */
+  public synchronized void recordAdd(long programId) {
+    append(OP_ADD, programId);
+  }
+  
+  /**
+   * Logs that all of the given ids were marked.
+   * <p>
+   * @param programIds The marked ids.
+   */
+  public synchronized void recordAddAll(long[] programIds) {
+    for(long programId : programIds) {
+      append(OP_ADD, programId);
+    }
+  }
+  
+  /**
+   * Logs that the given id was unmarked.
+   * <p>
+   * @param programId The unmarked id.
+   */
+  public synchronized void recordRemove(long programId) {
+    append(OP_REMOVE, programId);
+  }
+  
+  /**
+   * Logs that all ids below the given id were unmarked.
+   * <p>
+   * @param programId The smallest id that was kept.
+   */
+  public synchronized void recordRemoveBelow(long programId) {
+    append(OP_REMOVE_BELOW, programId);
+  }
+  
+  /**
+   * Drops all logged changes, e. g. because all ids were cleared or loaded again.
+   * All clients get a snapshot on their next request.
+   */
+  public synchronized void reset() {
+    mGeneration++;
+    mOldestGeneration = mGeneration;
+    mStart = 0;
+    mCount = 0;
+  }
+  
+  private void append(byte op, long programId) {
+    if(mCount == mOps.length) {
+      mStart = (mStart + 1) % mOps.length;
+      mCount--;
+      mOldestGeneration++;
+    }
+    
+    int index = (mStart + mCount) % mOps.length;
+    
+    mOps[index] = op;
+    mIds[index] = programId;
+    mCount++;
+    mGeneration++;
+  }
+  
+  /**
+   * Gets the changes since the given generation.
+   * <p>
+   * The caller has to prevent changes of the store while this method runs,
+   * so a snapshot matches the current generation.
+   * <p>
+   * @param epoch The epoch of the last changes of the client or <code>0</code> if it has no markings yet.
+   * @param generation The generation of the last changes of the client.
+   * @param store The store to create a snapshot from if the generation isn't logged anymore.
+   * @return The changes since the given generation.
+   */
+  public synchronized Changes getChangesSince(long epoch, long generation, MarkingStore store) {
+    if(epoch != mEpoch || generation < mOldestGeneration || generation > mGeneration) {
+      return new Changes(mEpoch, mGeneration, true, -1, store.toArray(), EMPTY);
+    }
+    
+    if(generation == mGeneration) {
+      return new Changes(mEpoch, mGeneration, false, -1, EMPTY, EMPTY);
+    }
+    
+    LinkedHashSet<Long> added = new LinkedHashSet<Long>();
+    LinkedHashSet<Long> removed = new LinkedHashSet<Long>();
+    long removedBelow = -1;
+    
+    for(int i = (int)(generation - mOldestGeneration); i < mCount; i++) {
+      int index = (mStart + i) % mOps.length;
+      long programId = mIds[index];
+      
+      switch(mOps[index]) {
+        case OP_ADD:
+          removed.remove(programId);
+          added.add(programId);
+          break;
+        case OP_REMOVE:
+          added.remove(programId);
+          removed.add(programId);
+          break;
+        case OP_REMOVE_BELOW:
+          removeBelow(added, programId);
+          removeBelow(removed, programId);
+          removedBelow = Math.max(removedBelow, programId);
+          break;
+      }
+    }
+    
+    return new Changes(mEpoch, mGeneration, false, removedBelow, toArray(added), toArray(removed));
+  }
+  
+  private static void removeBelow(LinkedHashSet<Long> ids, long programId) {
+    for(Iterator<Long> it = ids.iterator(); it.hasNext();) {
+      if(it.next() < programId) {
+        it.remove();
+      }
+    }
+  }
+  
+  private static long[] toArray(LinkedHashSet<Long> ids) {
+    if(ids.isEmpty()) {
+      return EMPTY;
+    }
+    
+    long[] result = new long[ids.size()];
+    int i = 0;
+    
+    for(Long id : ids) {
+      result[i++] = id;
+    }
+    
+    return result;
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Persists the marked program ids as a snapshot file plus an append-only
+ * journal of fixed-width (op, programId) records.
+ * <p>
+ * A marking change only appends one record to the journal, the snapshot
+ * is rewritten when the journal got larger than the marking set itself.
+ *
+ * @author agent
+ */
+public final class MarkingJournal {
+  /** Journal operation for an added marking */
+  public static final byte OP_ADD = 1;
+  /** Journal operation for a removed marking */
+  public static final byte OP_REMOVE = 2;
+  /** Journal operation for removing all markings with smaller ids than the given one */
+  public static final byte OP_REMOVE_BELOW = 3;
+  /** Journal operation for removing all markings, the id is ignored */
+  public static final byte OP_CLEAR = 4;
+  
+  private static final String SNAPSHOT_FILE = "markings.snapshot";
+  private static final String JOURNAL_FILE = "markings.journal";
+  
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final int RECORD_SIZE = 9;
+  private static final int MIN_COMPACTION_RECORDS = 256;
+  
+  private final File mSnapshotFile;
+  private final File mJournalFile;
+  
+  /* The number of records in the journal file */
+  private int mJournalRecords;
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param directory The directory to store the marking files in.
+   */
+  public MarkingJournal(File directory) {
+    mSnapshotFile = new File(directory, SNAPSHOT_FILE);
+    mJournalFile = new File(directory, JOURNAL_FILE);
+  }
+  
+  /**
+   * Gets if markings were already stored by this journal.
+   * <p>
+   * @return <code>true</code> if a snapshot or journal file exists, <code>false</code> otherwise.
+   */
+  public boolean exists() {
+    return mSnapshotFile.isFile() || mJournalFile.isFile();
+  }
+  
+  /**
+   * Loads the snapshot and replays the journal into the given store.
+   * <p>
+   * An incomplete last journal record, e. g. from a process killed while
+   * writing, is ignored and cut off so following records stay aligned.
+   * <p>
+   * @param store The store to add the loaded markings to.
+   * @throws IOException If the files could not be read.
+   */
+  public void load(MarkingStore store) throws IOException {
+    if(mSnapshotFile.isFile()) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mSnapshotFile)));
+      
+      try {
+        int version = in.readInt();
+        
+        if(version == SNAPSHOT_VERSION) {
+          long[] programIds = new long[in.readInt()];
+          
+          for(int i = 0; i < programIds.length; i++) {
+            programIds[i] = in.readLong();
+          }
+          
+          store.addAll(programIds);
+        }
+      } finally {
+        in.close();
+      }
+    }
+    
+    mJournalRecords = 0;
+    
+    if(mJournalFile.isFile()) {
+      long complete = mJournalFile.length() / RECORD_SIZE;
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mJournalFile)));
+      
+      try {
+        for(long i = 0; i < complete; i++) {
+          byte op = in.readByte();
+          long programId = in.readLong();
+          
+          apply(store, op, programId);
+        }
+      } catch(EOFException e) {
+        // file was shortened while reading, keep what was read
+      } finally {
+        in.close();
+      }
+      
+      mJournalRecords = (int)complete;
+      
+      if(mJournalFile.length() != complete * RECORD_SIZE) {
+        RandomAccessFile file = new RandomAccessFile(mJournalFile, "rw");
+        
+        try {
+          file.setLength(complete * RECORD_SIZE);
+        } finally {
+          file.close();
+        }
+      }
+    }
+  }
+  
+  /**
+   * Applies a journal operation to the given store.
+   * <p>
+   * @param store The store to change.
+   * @param op The operation to apply.
+   * @param programId The id of the operation.
+   */
+  public static void apply(MarkingStore store, byte op, long programId) {
+    switch(op) {
+      case OP_ADD: store.add(programId); break;
+      case OP_REMOVE: store.remove(programId); break;
+      case OP_REMOVE_BELOW: store.removeBelow(programId); break;
+      case OP_CLEAR: store.clear(); break;
+    }
+  }
+  
+  /**
+   * Appends marking changes to the journal with a single write.
+   * <p>
+   * @param ops The operations, one of the OP constants.
+   * @param programIds The ids of the changed programs.
+   * @param count The number of changes to append.
+   * @throws IOException If the journal could not be written.
+   */
+  public void append(byte[] ops, long[] programIds, int count) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mJournalFile, true), Math.max(1, count) * RECORD_SIZE));
+    
+    try {
+      for(int i = 0; i < count; i++) {
+        out.writeByte(ops[i]);
+        out.writeLong(programIds[i]);
+      }
+    } finally {
+      out.close();
+    }
+    
+    mJournalRecords += count;
+  }
+  
+  /**
+   * Gets if the journal should be compacted into the snapshot.
+   * <p>
+   * @param markingCount The current number of markings.
+   * @return <code>true</code> if {@link #compact(long[])} should be called, <code>false</code> otherwise.
+   */
+  public boolean needsCompaction(int markingCount) {
+    return mJournalRecords > Math.max(MIN_COMPACTION_RECORDS, markingCount);
+  }
+  
+  /**
+   * Writes the given markings as new snapshot and empties the journal.
+   * <p>
+   * The snapshot is written to a temporary file first, so a failed write
+   * keeps the old snapshot and journal intact.
+   * <p>
+   * @param programIds The ids of all currently marked programs.
+   * @throws IOException If the snapshot could not be written.
+   */
+  public void compact(long[] programIds) throws IOException {
+    File temp = new File(mSnapshotFile.getParentFile(), SNAPSHOT_FILE + ".tmp");
+    FileOutputStream fileOut = new FileOutputStream(temp);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+    
+    try {
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeInt(programIds.length);
+      
+      for(long programId : programIds) {
+        out.writeLong(programId);
+      }
+      
+      out.flush();
+      fileOut.getFD().sync();
+    } finally {
+      out.close();
+    }
+    
+    if(!temp.renameTo(mSnapshotFile)) {
+      temp.delete();
+      throw new IOException("Could not replace " + mSnapshotFile);
+    }
+    
+    if(mJournalFile.isFile() && !mJournalFile.delete()) {
+      throw new IOException("Could not delete " + mJournalFile);
+    }
+    
+    mJournalRecords = 0;
+  }
+}
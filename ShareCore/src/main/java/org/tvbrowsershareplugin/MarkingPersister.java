@@ -0,0 +1,232 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes marking changes to a {@link MarkingJournal} on a background thread.
+ * <p>
+ * Changes are collected and written together after a short delay, so a
+ * burst of marking changes results in a single journal write. The journal
+ * is only accessed from the background thread, which keeps its own copy of
+ * the persisted markings for compaction.
+ *
+ * @author agent
+ */
+public final class MarkingPersister {
+  /* The delay in milliseconds to wait for further changes before writing */
+  private static final long FLUSH_DELAY = 2000;
+  
+  private final MarkingJournal mJournal;
+  
+  /* The metrics the journal writes are recorded in or null */
+  private final CallMetrics mMetrics;
+  private final int mWriteCall;
+  
+  /* The persisted markings, only accessed from the executor thread */
+  private final MarkingStore mPersisted;
+  
+  private final ScheduledExecutorService mExecutor;
+  
+  /* The changes that are not written yet, guarded by this */
+  private byte[] mPendingOps;
+  private long[] mPendingIds;
+  private int mPendingCount;
+  private boolean mWriteScheduled;
+  
+  private final Runnable mWriteTask = new Runnable() {
+    @Override
+    public void run() {
+      write();
+    }
+  };
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param journal The journal to write the changes to.
+   * @param persistedIds The ids that are currently stored in the journal.
+   */
+  public MarkingPersister(MarkingJournal journal, long[] persistedIds) {
+    this(journal, persistedIds, null, -1);
+  }
+  
+  /**
+   * Creates an instance of this class that records the duration of every
+   * journal write, including a compaction, in the given metrics.
+   * <p>
+   * @param journal The journal to write the changes to.
+   * @param persistedIds The ids that are currently stored in the journal.
+   * @param metrics The metrics to record the writes in or <code>null</code> to not record them.
+   * @param writeCall The call id of the writes in the metrics.
+   */
+  public MarkingPersister(MarkingJournal journal, long[] persistedIds, CallMetrics metrics, int writeCall) {
+    mJournal = journal;
+    mMetrics = metrics;
+    mWriteCall = writeCall;
+    mPersisted = new MarkingStore();
+    mPersisted.addAll(persistedIds);
+    
+    mPendingOps = new byte[16];
+    mPendingIds = new long[16];
+    
+    mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "MarkingPersister");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+  
+  /**
+   * Queues a marking change for writing.
+   * <p>
+   * @param op The operation, one of the OP constants of {@link MarkingJournal}.
+   * @param programId The id of the changed program.
+   */
+  public synchronized void enqueue(byte op, long programId) {
+    ensureCapacity(mPendingCount + 1);
+    
+    mPendingOps[mPendingCount] = op;
+    mPendingIds[mPendingCount] = programId;
+    mPendingCount++;
+    
+    scheduleWrite();
+  }
+  
+  /**
+   * Queues the same marking change for all of the given ids for writing.
+   * <p>
+   * @param op The operation, one of the OP constants of {@link MarkingJournal}.
+   * @param programIds The ids of the changed programs.
+   */
+  public synchronized void enqueueAll(byte op, long[] programIds) {
+    int count = mPendingCount + programIds.length;
+    
+    ensureCapacity(count);
+    
+    Arrays.fill(mPendingOps, mPendingCount, count, op);
+    System.arraycopy(programIds, 0, mPendingIds, mPendingCount, programIds.length);
+    mPendingCount = count;
+    
+    scheduleWrite();
+  }
+  
+  private void ensureCapacity(int count) {
+    if(count > mPendingIds.length) {
+      int capacity = Math.max(count, mPendingIds.length * 2);
+      
+      mPendingOps = Arrays.copyOf(mPendingOps, capacity);
+      mPendingIds = Arrays.copyOf(mPendingIds, capacity);
+    }
+  }
+  
+  private void scheduleWrite() {
+    if(!mWriteScheduled && !mExecutor.isShutdown()) {
+      mWriteScheduled = true;
+      mExecutor.schedule(mWriteTask, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+    }
+  }
+  
+  /**
+   * Writes all queued changes and waits until they are written.
+   */
+  public void flush() {
+    if(mExecutor.isShutdown()) {
+      return;
+    }
+    
+    try {
+      mExecutor.submit(mWriteTask).get();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch(ExecutionException e) {
+      e.printStackTrace();
+    }
+  }
+  
+  /**
+   * Writes all queued changes and stops the background thread.
+   * Changes queued after this call are not written anymore.
+   */
+  public void close() {
+    flush();
+    mExecutor.shutdown();
+  }
+  
+  private void write() {
+    byte[] ops;
+    long[] programIds;
+    int count;
+    
+    synchronized(this) {
+      ops = mPendingOps;
+      programIds = mPendingIds;
+      count = mPendingCount;
+      
+      mPendingOps = new byte[16];
+      mPendingIds = new long[16];
+      mPendingCount = 0;
+      mWriteScheduled = false;
+    }
+    
+    if(count > 0) {
+      long start = mMetrics != null ? System.nanoTime() : 0;
+      
+      for(int i = 0; i < count;) {
+        int end = i + 1;
+        
+        if(ops[i] == MarkingJournal.OP_ADD) {
+          /* Consecutive additions, e. g. of a marked list, with a single copy */
+          while(end < count && ops[end] == MarkingJournal.OP_ADD) {
+            end++;
+          }
+          
+          mPersisted.addAll(Arrays.copyOfRange(programIds, i, end));
+        }
+        else {
+          MarkingJournal.apply(mPersisted, ops[i], programIds[i]);
+        }
+        
+        i = end;
+      }
+      
+      try {
+        mJournal.append(ops, programIds, count);
+        
+        if(mJournal.needsCompaction(mPersisted.size())) {
+          mJournal.compact(mPersisted.toArray());
+        }
+      } catch(IOException e) {
+        e.printStackTrace();
+      }
+      
+      if(mMetrics != null) {
+        mMetrics.record(mWriteCall, start);
+      }
+    }
+  }
+}
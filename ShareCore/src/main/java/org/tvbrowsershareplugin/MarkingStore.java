@@ -0,0 +1,279 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.util.Arrays;
+
+/**
+ * A set of marked program ids kept as a sorted primitive long array.
+ * <p>
+ * Lookups are binary searches without any allocation, so {@link #contains(long)}
+ * can be called for every program TV-Browser shows without producing garbage.
+ * Since program ids are increasing, expired ids are always at the start of the
+ * array and are dropped by moving the start offset in {@link #removeBelow(long)}.
+ * <p>
+ * This class is thread safe. The ids are copied on write and published as an
+ * immutable state, so reading methods never lock and never see a partial change,
+ * while changing methods are synchronized with each other.
+ *
+ * @author agent
+ */
+public final class MarkingStore {
+  private static final long[] EMPTY = new long[0];
+  
+  /*
+   * An immutable state of the store, the array is never changed after
+   * the state was created and may be shared between states.
+   */
+  private static final class State {
+    /* The sorted ids, only the size entries starting at offset are valid */
+    private final long[] mIds;
+    private final int mOffset;
+    private final int mSize;
+    
+    /* Exact sized copy of the ids, created on first request and published safely to other threads */
+    private volatile long[] mSnapshot;
+    
+    private State(long[] ids, int offset, int size) {
+      mIds = ids;
+      mOffset = offset;
+      mSize = size;
+      
+      if(offset == 0 && size == ids.length) {
+        mSnapshot = ids;
+      }
+    }
+    
+    private int indexOf(long programId) {
+      return Arrays.binarySearch(mIds, mOffset, mOffset + mSize, programId);
+    }
+  }
+  
+  private static final State EMPTY_STATE = new State(EMPTY, 0, 0);
+  
+  private volatile State mState;
+  
+  /**
+   * Creates an empty instance of this class.
+   */
+  public MarkingStore() {
+    mState = EMPTY_STATE;
+  }
+  
+  /**
+   * Gets if the given program id is contained in this store.
+   * <p>
+   * @param programId The program id to check.
+   * @return <code>true</code> if the id is contained, <code>false</code> otherwise.
+   */
+  public boolean contains(long programId) {
+    return mState.indexOf(programId) >= 0;
+  }
+  
+  /**
+   * Adds the given program id to this store.
+   * <p>
+   * @param programId The program id to add.
+   * @return <code>true</code> if the id was added, <code>false</code> if it was already contained.
+   */
+  public synchronized boolean add(long programId) {
+    State state = mState;
+    int index = state.indexOf(programId);
+    
+    if(index >= 0) {
+      return false;
+    }
+    
+    index = -(index + 1) - state.mOffset;
+    
+    long[] ids = new long[state.mSize + 1];
+    System.arraycopy(state.mIds, state.mOffset, ids, 0, index);
+    ids[index] = programId;
+    System.arraycopy(state.mIds, state.mOffset + index, ids, index + 1, state.mSize - index);
+    
+    mState = new State(ids, 0, ids.length);
+    
+    return true;
+  }
+  
+  /**
+   * Adds all of the given program ids to this store with a single copy.
+   * <p>
+   * @param programIds The program ids to add, in any order.
+   * @return The number of ids that were added.
+   */
+  public synchronized int addAll(long[] programIds) {
+    State state = mState;
+    
+    long[] added = programIds.clone();
+    Arrays.sort(added);
+    
+    long[] ids = new long[state.mSize + added.length];
+    int i = state.mOffset;
+    int end = state.mOffset + state.mSize;
+    int j = 0;
+    int count = 0;
+    
+    while(i < end || j < added.length) {
+      long next;
+      
+      if(j >= added.length || (i < end && state.mIds[i] <= added[j])) {
+        next = state.mIds[i++];
+      }
+      else {
+        next = added[j++];
+      }
+      
+      if(count == 0 || ids[count - 1] != next) {
+        ids[count++] = next;
+      }
+    }
+    
+    if(count == state.mSize) {
+      return 0;
+    }
+    
+    mState = new State(count == ids.length ? ids : Arrays.copyOf(ids, count), 0, count);
+    
+    return count - state.mSize;
+  }
+  
+  /**
+   * Removes the given program id from this store.
+   * <p>
+   * @param programId The program id to remove.
+   * @return <code>true</code> if the id was removed, <code>false</code> if it wasn't contained.
+   */
+  public synchronized boolean remove(long programId) {
+    State state = mState;
+    int index = state.indexOf(programId);
+    
+    if(index < 0) {
+      return false;
+    }
+    
+    index -= state.mOffset;
+    
+    long[] ids = new long[state.mSize - 1];
+    System.arraycopy(state.mIds, state.mOffset, ids, 0, index);
+    System.arraycopy(state.mIds, state.mOffset + index + 1, ids, index, state.mSize - index - 1);
+    
+    mState = new State(ids, 0, ids.length);
+    
+    return true;
+  }
+  
+  /**
+   * Removes all of the given program ids from this store with a single copy.
+   * <p>
+   * @param programIds The program ids to remove, in any order.
+   * @return The number of ids that were removed.
+   */
+  public synchronized int removeAll(long[] programIds) {
+    State state = mState;
+    
+    long[] removed = programIds.clone();
+    Arrays.sort(removed);
+    
+    long[] ids = new long[state.mSize];
+    int end = state.mOffset + state.mSize;
+    int j = 0;
+    int count = 0;
+    
+    for(int i = state.mOffset; i < end; i++) {
+      long id = state.mIds[i];
+      
+      while(j < removed.length && removed[j] < id) {
+        j++;
+      }
+      
+      if(j >= removed.length || removed[j] != id) {
+        ids[count++] = id;
+      }
+    }
+    
+    if(count == state.mSize) {
+      return 0;
+    }
+    
+    mState = new State(Arrays.copyOf(ids, count), 0, count);
+    
+    return state.mSize - count;
+  }
+  
+  /**
+   * Removes all ids that are smaller than the given program id.
+   * <p>
+   * Only the start offset is moved, so this takes O(log n) for any number of removed ids.
+   * <p>
+   * @param programId The smallest id to keep.
+   * @return The number of removed ids.
+   */
+  public synchronized int removeBelow(long programId) {
+    State state = mState;
+    int index = state.indexOf(programId);
+    
+    if(index < 0) {
+      index = -(index + 1);
+    }
+    
+    int removed = index - state.mOffset;
+    
+    if(removed > 0) {
+      mState = new State(state.mIds, index, state.mSize - removed);
+    }
+    
+    return removed;
+  }
+  
+  /**
+   * Removes all ids from this store.
+   */
+  public synchronized void clear() {
+    mState = EMPTY_STATE;
+  }
+  
+  /**
+   * Gets the number of ids in this store.
+   * <p>
+   * @return The number of ids in this store.
+   */
+  public int size() {
+    return mState.mSize;
+  }
+  
+  /**
+   * Gets the ids of this store in ascending order.
+   * <p>
+   * The returned array is shared until the next modification of this store,
+   * so it must not be modified by the caller.
+   * <p>
+   * @return The sorted ids of this store.
+   */
+  public long[] toArray() {
+    State state = mState;
+    long[] snapshot = state.mSnapshot;
+    
+    if(snapshot == null) {
+      /* Concurrent callers may both create a copy, they are equal and fully written before publication */
+      snapshot = Arrays.copyOfRange(state.mIds, state.mOffset, state.mOffset + state.mSize);
+      state.mSnapshot = snapshot;
+    }
+    
+    return snapshot;
+  }
+}
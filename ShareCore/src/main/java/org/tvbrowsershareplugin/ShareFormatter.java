@@ -0,0 +1,100 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2014 René Mach (rene@tvbrowser.org)
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+/**
+ * Creates the texts of shared programs from the compiled templates.
+ * <p>
+ * The texts are built in a buffer that every thread reuses, so sharing
+ * a program only allocates the resulting String.
+ *
+ * @author René Mach
+ * @author agent
+ */
+public final class ShareFormatter {
+  /** The maximum length of a shared short description */
+  public static final int MAX_SHORT_DESCRIPTION_LENGTH = 160;
+  
+  /* The maximum capacity of a share text buffer that is kept for reuse */
+  private static final int MAX_REUSED_BUFFER_CAPACITY = 16384;
+  
+  /* The reused share text buffer of each thread */
+  private static final ThreadLocal<StringBuilder> SHARE_BUFFER = new ThreadLocal<StringBuilder>() {
+    @Override
+    protected StringBuilder initialValue() {
+      return new StringBuilder(1024);
+    }
+  };
+  
+  private ShareFormatter() {}
+  
+  /**
+   * Creates the text of the given template with the given values.
+   * <p>
+   * @param template The template to render.
+   * @param values The values for the placeholders.
+   * @return The created text.
+   */
+  public static String render(ShareTemplate template, ShareTemplate.Values values) {
+    StringBuilder buffer = SHARE_BUFFER.get();
+    buffer.setLength(0);
+    
+    template.render(values, buffer);
+    String result = buffer.toString();
+    
+    if(buffer.capacity() > MAX_REUSED_BUFFER_CAPACITY) {
+      SHARE_BUFFER.remove();
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Selects the description to share, the short description is cut after
+   * {@link #MAX_SHORT_DESCRIPTION_LENGTH} characters.
+   * <p>
+   * @param shortDescription The short description of the program, may be <code>null</code>.
+   * @param description The full description of the program, may be <code>null</code>.
+   * @param useShortDescription <code>true</code> if the short description should be shared.
+   * @return The description to share or <code>null</code> if the program has none.
+   */
+  public static String selectDescription(String shortDescription, String description, boolean useShortDescription) {
+    String desc = null;
+    
+    if(useShortDescription) {
+      desc = shortDescription;
+      
+      if(desc == null || desc.trim().length() == 0) {
+        desc = description;
+      }
+      
+      if(desc != null && desc.length() > MAX_SHORT_DESCRIPTION_LENGTH) {
+        desc = desc.substring(0, MAX_SHORT_DESCRIPTION_LENGTH) + "\u2026";
+      }
+    }
+    else {
+      desc = description;
+      
+      if(desc == null) {
+        desc = shortDescription;
+      }
+    }
+    
+    return desc;
+  }
+}
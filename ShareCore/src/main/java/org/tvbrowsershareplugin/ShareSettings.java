@@ -0,0 +1,190 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2014 René Mach (rene@tvbrowser.org)
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+/**
+ * An immutable snapshot of the share preferences.
+ *
+ * @author René Mach
+ * @author agent
+ */
+public final class ShareSettings {
+  /* The template for the subject of a shared program */
+  private static final ShareTemplate SUBJECT_TEMPLATE = ShareTemplate.compile("{date}, {start} - {end} {channel}: {title}[ - {episode}]");
+  
+  private final boolean mMessageContainsDate;
+  private final boolean mMessageContainsChannel;
+  private final boolean mShortDescription;
+  private final boolean mOnlyTitleAvailable;
+  private final boolean mMarkPrograms;
+  private final boolean mShareInBackground;
+  private final String[] mTargetAddresses;
+  private final ShareTemplate mMessageTemplate;
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param messageContainsDate <code>true</code> if the message should contain the date and time.
+   * @param messageContainsChannel <code>true</code> if the message should contain the channel name.
+   * @param shortDescription <code>true</code> if the short description should be shared, <code>false</code> for the full description.
+   * @param onlyTitleAvailable <code>true</code> if the share only title context menu should be shown.
+   * @param markPrograms <code>true</code> if shared programs should be marked.
+   * @param shareInBackground <code>true</code> if the share text should be created and shared after TV-Browser got the marking.
+   * @param targetAddresses The value of the target address preference, one or more email addresses separated by comma.
+   * @param messageTemplate The user defined message template or an empty String to create it from the other values.
+   */
+  public ShareSettings(boolean messageContainsDate, boolean messageContainsChannel, boolean shortDescription, boolean onlyTitleAvailable, boolean markPrograms, boolean shareInBackground, String targetAddresses, String messageTemplate) {
+    mMessageContainsDate = messageContainsDate;
+    mMessageContainsChannel = messageContainsChannel;
+    mShortDescription = shortDescription;
+    mOnlyTitleAvailable = onlyTitleAvailable;
+    mMarkPrograms = markPrograms;
+    mShareInBackground = shareInBackground;
+    
+    String mailAddresses = targetAddresses != null ? targetAddresses.trim() : "";
+    
+    if(mailAddresses.contains(",")) {
+      mTargetAddresses = mailAddresses.split("\\s+,\\s+");
+    }
+    else if(mailAddresses.length() > 0) {
+      mTargetAddresses = new String[] {mailAddresses};
+    }
+    else {
+      mTargetAddresses = null;
+    }
+    
+    if(messageTemplate != null && messageTemplate.trim().length() > 0) {
+      mMessageTemplate = ShareTemplate.compile(messageTemplate);
+    }
+    else {
+      mMessageTemplate = ShareTemplate.compile(createDefaultMessageTemplate(messageContainsDate, messageContainsChannel));
+    }
+  }
+  
+  /**
+   * Creates the message template that matches the given date and channel preferences.
+   * <p>
+   * @param containsDate <code>true</code> if the message should contain the date and time.
+   * @param containsChannel <code>true</code> if the message should contain the channel name.
+   * @return The template text.
+   */
+  public static String createDefaultMessageTemplate(boolean containsDate, boolean containsChannel) {
+    StringBuilder template = new StringBuilder();
+    
+    if(containsDate) {
+      template.append("{date}, {start} - {end}");
+    }
+    
+    if(containsChannel) {
+      if(template.length() > 0) {
+        template.append(" ");
+      }
+      
+      template.append("{channel}: ");
+    }
+    
+    if(template.length() > 0) {
+      template.append("\n\n");
+    }
+    
+    template.append("{title}[ - {episode}][\n\n{description}]");
+    
+    return template.toString();
+  }
+  
+  /**
+   * Gets if the message should contain the date and time.
+   * <p>
+   * @return <code>true</code> if the message should contain the date and time, <code>false</code> otherwise.
+   */
+  public boolean isMessageContainsDate() {
+    return mMessageContainsDate;
+  }
+  
+  /**
+   * Gets if the message should contain the channel name.
+   * <p>
+   * @return <code>true</code> if the message should contain the channel name, <code>false</code> otherwise.
+   */
+  public boolean isMessageContainsChannel() {
+    return mMessageContainsChannel;
+  }
+  
+  /**
+   * Gets if the short description should be shared.
+   * <p>
+   * @return <code>true</code> if the short description should be shared, <code>false</code> otherwise.
+   */
+  public boolean isShortDescription() {
+    return mShortDescription;
+  }
+  
+  /**
+   * Gets if the share only title context menu should be shown.
+   * <p>
+   * @return <code>true</code> if the share only title context menu should be shown, <code>false</code> otherwise.
+   */
+  public boolean isOnlyTitleAvailable() {
+    return mOnlyTitleAvailable;
+  }
+  
+  /**
+   * Gets if shared programs should be marked.
+   * <p>
+   * @return <code>true</code> if shared programs should be marked, <code>false</code> otherwise.
+   */
+  public boolean isMarkPrograms() {
+    return mMarkPrograms;
+  }
+  
+  /**
+   * Gets if the share text should be created and shared in the background.
+   * <p>
+   * @return <code>true</code> if the share should not delay the answer to TV-Browser, <code>false</code> otherwise.
+   */
+  public boolean isShareInBackground() {
+    return mShareInBackground;
+  }
+  
+  /**
+   * Gets the email addresses to share with, the returned array must not be modified.
+   * <p>
+   * @return The email addresses to share with or <code>null</code> if there are none.
+   */
+  public String[] getTargetAddresses() {
+    return mTargetAddresses;
+  }
+  
+  /**
+   * Gets the compiled template for the share message.
+   * <p>
+   * @return The template for the share message.
+   */
+  public ShareTemplate getMessageTemplate() {
+    return mMessageTemplate;
+  }
+  
+  /**
+   * Gets the compiled template for the share subject.
+   * <p>
+   * @return The template for the share subject.
+   */
+  public ShareTemplate getSubjectTemplate() {
+    return SUBJECT_TEMPLATE;
+  }
+}
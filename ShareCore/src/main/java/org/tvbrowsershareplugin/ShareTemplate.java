@@ -0,0 +1,293 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.util.ArrayList;
+
+/**
+ * A share message template that is compiled once into a list of segments.
+ * <p>
+ * The template text may contain the placeholders <code>{title}</code>, <code>{episode}</code>,
+ * <code>{channel}</code>, <code>{date}</code>, <code>{start}</code>, <code>{end}</code>,
+ * <code>{description}</code>, <code>{short_description}</code> and <code>{long_description}</code>.
+ * Text in square brackets is only added if all placeholders in it have a value,
+ * e. g. <code>[ - {episode}]</code>. Literal brackets are written doubled,
+ * <code>[[</code> and <code>]]</code>.
+ *
+ * @author agent
+ */
+public final class ShareTemplate {
+  /** The title of the program */
+  public static final int FIELD_TITLE = 0;
+  /** The episode title of the program */
+  public static final int FIELD_EPISODE = 1;
+  /** The channel name of the program */
+  public static final int FIELD_CHANNEL = 2;
+  /** The start date of the program */
+  public static final int FIELD_DATE = 3;
+  /** The start time of the program */
+  public static final int FIELD_START = 4;
+  /** The end time of the program */
+  public static final int FIELD_END = 5;
+  /** The description of the program as selected in the preferences */
+  public static final int FIELD_DESCRIPTION = 6;
+  /** The short description of the program */
+  public static final int FIELD_SHORT_DESCRIPTION = 7;
+  /** The full description of the program */
+  public static final int FIELD_LONG_DESCRIPTION = 8;
+  
+  private static final String[] FIELD_NAMES = {
+      "title", "episode", "channel", "date", "start", "end", "description", "short_description", "long_description"
+  };
+  
+  /**
+   * The source of the values for the placeholders of a template.
+   */
+  public interface Values {
+    /**
+     * Gets the value of the given field.
+     * <p>
+     * @param field One of the FIELD constants of {@link ShareTemplate}.
+     * @return The value of the field or <code>null</code> if there is none.
+     */
+    CharSequence get(int field);
+  }
+  
+  private interface Segment {
+    boolean isAvailable(Values values);
+    void emit(Values values, StringBuilder out);
+  }
+  
+  private static final class Text implements Segment {
+    private final String mText;
+    
+    private Text(String text) {
+      mText = text;
+    }
+    
+    @Override
+    public boolean isAvailable(Values values) {
+      return true;
+    }
+    
+    @Override
+    public void emit(Values values, StringBuilder out) {
+      out.append(mText);
+    }
+  }
+  
+  private static final class Field implements Segment {
+    private final int mField;
+    
+    private Field(int field) {
+      mField = field;
+    }
+    
+    @Override
+    public boolean isAvailable(Values values) {
+      CharSequence value = values.get(mField);
+      return value != null && value.length() > 0;
+    }
+    
+    @Override
+    public void emit(Values values, StringBuilder out) {
+      CharSequence value = values.get(mField);
+      
+      if(value != null) {
+        out.append(value);
+      }
+    }
+  }
+  
+  private static final class Optional implements Segment {
+    private final Segment[] mSegments;
+    
+    private Optional(Segment[] segments) {
+      mSegments = segments;
+    }
+    
+    @Override
+    public boolean isAvailable(Values values) {
+      return true;
+    }
+    
+    @Override
+    public void emit(Values values, StringBuilder out) {
+      for(Segment segment : mSegments) {
+        if(!segment.isAvailable(values)) {
+          return;
+        }
+      }
+      
+      for(Segment segment : mSegments) {
+        segment.emit(values, out);
+      }
+    }
+  }
+  
+  private final String mTemplate;
+  private final Segment[] mSegments;
+  private int mUsedFields;
+  
+  private ShareTemplate(String template) {
+    mTemplate = template;
+    mUsedFields = 0;
+    
+    int[] position = {0};
+    mSegments = parse(template, position, false);
+  }
+  
+  /**
+   * Compiles the given template text.
+   * <p>
+   * Unknown placeholders and unmatched brackets are kept as text,
+   * doubled brackets are a single bracket of text.
+   * <p>
+   * @param template The template text to compile.
+   * @return The compiled template.
+   */
+  public static ShareTemplate compile(String template) {
+    return new ShareTemplate(template);
+  }
+  
+  /**
+   * Gets the text this template was compiled from.
+   * <p>
+   * @return The template text.
+   */
+  public String getTemplate() {
+    return mTemplate;
+  }
+  
+  /**
+   * Gets if the given field is used by this template.
+   * <p>
+   * @param field One of the FIELD constants.
+   * @return <code>true</code> if the field is used, <code>false</code> otherwise.
+   */
+  public boolean usesField(int field) {
+    return (mUsedFields & (1 << field)) != 0;
+  }
+  
+  /**
+   * Appends the text of this template with the given values to the given buffer.
+   * <p>
+   * @param values The values for the placeholders.
+   * @param out The buffer to append the text to.
+   */
+  public void render(Values values, StringBuilder out) {
+    for(Segment segment : mSegments) {
+      segment.emit(values, out);
+    }
+  }
+  
+  private Segment[] parse(String template, int[] position, boolean optional) {
+    ArrayList<Segment> segments = new ArrayList<Segment>();
+    StringBuilder text = new StringBuilder();
+    
+    while(position[0] < template.length()) {
+      char c = template.charAt(position[0]);
+      
+      if(c == '{') {
+        int end = template.indexOf('}', position[0]);
+        int field = end > 0 ? indexOfField(template.substring(position[0] + 1, end)) : -1;
+        
+        if(field >= 0) {
+          addText(segments, text);
+          segments.add(new Field(field));
+          mUsedFields |= 1 << field;
+          position[0] = end + 1;
+          continue;
+        }
+      }
+      else if(isDoubled(template, position[0], c)) {
+        text.append(c);
+        position[0] += 2;
+        continue;
+      }
+      else if(c == '[' && findClosingBracket(template, position[0] + 1) >= 0) {
+        addText(segments, text);
+        position[0]++;
+        segments.add(new Optional(parse(template, position, true)));
+        continue;
+      }
+      else if(c == ']' && optional) {
+        position[0]++;
+        break;
+      }
+      
+      text.append(c);
+      position[0]++;
+    }
+    
+    addText(segments, text);
+    
+    return segments.toArray(new Segment[segments.size()]);
+  }
+  
+  /*
+   * Gets if the character at the given index is an escaped bracket.
+   */
+  private static boolean isDoubled(String template, int index, char c) {
+    return (c == '[' || c == ']') && index + 1 < template.length() && template.charAt(index + 1) == c;
+  }
+  
+  /*
+   * Gets the index of the bracket that closes an optional section starting at the given index,
+   * or -1 if the section is not closed.
+   */
+  private static int findClosingBracket(String template, int start) {
+    int depth = 0;
+    
+    for(int i = start; i < template.length(); i++) {
+      char c = template.charAt(i);
+      
+      if(isDoubled(template, i, c)) {
+        i++;
+      }
+      else if(c == '[') {
+        depth++;
+      }
+      else if(c == ']') {
+        if(depth == 0) {
+          return i;
+        }
+        
+        depth--;
+      }
+    }
+    
+    return -1;
+  }
+  
+  private static void addText(ArrayList<Segment> segments, StringBuilder text) {
+    if(text.length() > 0) {
+      segments.add(new Text(text.toString()));
+      text.setLength(0);
+    }
+  }
+  
+  private static int indexOfField(String name) {
+    for(int i = 0; i < FIELD_NAMES.length; i++) {
+      if(FIELD_NAMES[i].equals(name)) {
+        return i;
+      }
+    }
+    
+    return -1;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small least recently used cache of prepared share texts by program id.
+ * <p>
+ * A text is only returned for the settings and the generation of the
+ * {@link DateFormatCache} it was prepared with, so a change of the share
+ * preferences, locale or time zone never shares an outdated text, even if
+ * the preparation was still running when the change happened.
+ *
+ * @author agent
+ */
+public final class ShareTextCache {
+  /**
+   * The prepared subject and message of a program.
+   */
+  public static final class Entry {
+    private final ShareSettings mSettings;
+    private final int mFormatGeneration;
+    private final String mSubject;
+    private final String mMessage;
+    
+    private Entry(ShareSettings settings, int formatGeneration, String subject, String message) {
+      mSettings = settings;
+      mFormatGeneration = formatGeneration;
+      mSubject = subject;
+      mMessage = message;
+    }
+    
+    /**
+     * @return The prepared subject.
+     */
+    public String getSubject() {
+      return mSubject;
+    }
+    
+    /**
+     * @return The prepared message.
+     */
+    public String getMessage() {
+      return mMessage;
+    }
+  }
+  
+  private final LinkedHashMap<Long, Entry> mEntries;
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param capacity The maximum number of texts to keep.
+   */
+  public ShareTextCache(final int capacity) {
+    mEntries = new LinkedHashMap<Long, Entry>(capacity * 2, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, ShareTextCache.Entry> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+  
+  /**
+   * Gets the text prepared for the given program with the given settings and date formats.
+   * <p>
+   * @param programId The id of the program.
+   * @param settings The current share settings.
+   * @param formatGeneration The current generation of the date formats.
+   * @return The prepared text or <code>null</code> if there is none for the settings and date formats.
+   */
+  public synchronized Entry get(long programId, ShareSettings settings, int formatGeneration) {
+    Entry entry = mEntries.get(programId);
+    
+    return entry != null && entry.mSettings == settings && entry.mFormatGeneration == formatGeneration ? entry : null;
+  }
+  
+  /**
+   * Keeps a prepared text, the least recently used text is dropped if the cache is full.
+   * <p>
+   * @param programId The id of the program.
+   * @param settings The share settings the text was prepared with.
+   * @param formatGeneration The generation of the date formats when the preparation started.
+   * @param subject The prepared subject.
+   * @param message The prepared message.
+   */
+  public synchronized void put(long programId, ShareSettings settings, int formatGeneration, String subject, String message) {
+    mEntries.put(programId, new Entry(settings, formatGeneration, subject, message));
+  }
+  
+  /**
+   * Drops all texts, e. g. because the date formats changed and they can't be used anymore.
+   */
+  public synchronized void clear() {
+    mEntries.clear();
+  }
+}
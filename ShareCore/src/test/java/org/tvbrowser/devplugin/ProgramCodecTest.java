@@ -0,0 +1,158 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowser.devplugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the program batch format with valid, truncated and corrupt data.
+ *
+ * @author agent
+ */
+public class ProgramCodecTest {
+  /* The position of the length of the title of the first program */
+  private static final int FIRST_TITLE_LENGTH_POSITION = 12 + 8 * 3 + 4 + 1;
+  
+  private static final class Collector implements ProgramCodec.Receiver {
+    private final List<Object[]> mPrograms = new ArrayList<Object[]>();
+    
+    @Override
+    public void onProgram(long id, long startTime, long endTime, String title, String shortDescription, String description, String episodeTitle, int channelId, String channelName) {
+      mPrograms.add(new Object[] {id, startTime, endTime, title, shortDescription, description, episodeTitle, channelId, channelName});
+    }
+  }
+  
+  private static ByteBuffer encode() {
+    ProgramCodec.Writer writer = new ProgramCodec.Writer(1);
+    
+    writer.add(1, 1000, 2000, "Tatort", "Kurz", "Eine längere Beschreibung", "Borowski", 7, "Das Erste");
+    writer.add(2, 2000, 3000, "Tagesthemen", null, null, null, 7, "Das Erste");
+    
+    /* More programs than the initial buffer holds */
+    for(int i = 0; i < 100; i++) {
+      writer.add(10 + i, i, i + 1, "Sendung " + i, null, "Beschreibung " + i, null, 8 + (i % 3), "Sender " + (i % 3));
+    }
+    
+    return writer.finish();
+  }
+  
+  private static void assertCorrupt(ByteBuffer data) {
+    try {
+      ProgramCodec.read(data, new Collector());
+      fail("corrupt batch was read");
+    } catch(IOException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void testRoundTrip() throws IOException {
+    Collector collector = new Collector();
+    
+    assertEquals(102, ProgramCodec.read(encode(), collector));
+    assertEquals(102, collector.mPrograms.size());
+    
+    Object[] first = collector.mPrograms.get(0);
+    assertEquals(1L, first[0]);
+    assertEquals(1000L, first[1]);
+    assertEquals(2000L, first[2]);
+    assertEquals("Tatort", first[3]);
+    assertEquals("Kurz", first[4]);
+    assertEquals("Eine längere Beschreibung", first[5]);
+    assertEquals("Borowski", first[6]);
+    assertEquals(7, first[7]);
+    assertEquals("Das Erste", first[8]);
+    
+    /* The channel name is only written once, but read for every program */
+    Object[] second = collector.mPrograms.get(1);
+    assertNull(second[4]);
+    assertNull(second[6]);
+    assertEquals("Das Erste", second[8]);
+    
+    Object[] last = collector.mPrograms.get(101);
+    assertEquals(109L, last[0]);
+    assertEquals("Sendung 99", last[3]);
+    assertEquals("Sender 0", last[8]);
+  }
+  
+  @Test
+  public void testReadFromDirectBuffer() throws IOException {
+    ByteBuffer heap = encode();
+    ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining());
+    direct.put(heap).flip();
+    
+    assertEquals(102, ProgramCodec.read(direct, new Collector()));
+  }
+  
+  @Test
+  public void testTruncatedBatch() {
+    ByteBuffer data = encode();
+    
+    for(int limit : new int[] {0, 11, 20, FIRST_TITLE_LENGTH_POSITION + 2, data.limit() - 1}) {
+      ByteBuffer truncated = data.duplicate();
+      truncated.limit(limit);
+      
+      assertCorrupt(truncated);
+    }
+  }
+  
+  @Test
+  public void testWrongMagicAndVersion() {
+    ByteBuffer data = encode();
+    data.putInt(0, 0x12345678);
+    assertCorrupt(data);
+    
+    data = encode();
+    data.putInt(4, 99);
+    assertCorrupt(data);
+  }
+  
+  @Test
+  public void testCorruptCount() {
+    ByteBuffer data = encode();
+    data.putInt(8, Integer.MAX_VALUE);
+    assertCorrupt(data);
+    
+    data = encode();
+    data.putInt(8, -1);
+    assertCorrupt(data);
+  }
+  
+  @Test
+  public void testCorruptStringLengthDoesNotAllocate() {
+    ByteBuffer heap = encode();
+    ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining());
+    direct.put(heap).flip();
+    
+    /* A mapped file has no backing array, the length must be checked before allocating */
+    direct.putInt(FIRST_TITLE_LENGTH_POSITION, Integer.MAX_VALUE - 8);
+    assertCorrupt(direct);
+    
+    ByteBuffer negative = encode();
+    negative.putInt(FIRST_TITLE_LENGTH_POSITION, -5);
+    assertCorrupt(negative);
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the marking change log, its merging of changes and its snapshot fallback.
+ *
+ * @author agent
+ */
+public class MarkingChangeLogTest {
+  private final MarkingStore mStore = new MarkingStore();
+  
+  private void add(MarkingChangeLog log, long programId) {
+    mStore.add(programId);
+    log.recordAdd(programId);
+  }
+  
+  private void remove(MarkingChangeLog log, long programId) {
+    mStore.remove(programId);
+    log.recordRemove(programId);
+  }
+  
+  private void removeBelow(MarkingChangeLog log, long programId) {
+    mStore.removeBelow(programId);
+    log.recordRemoveBelow(programId);
+  }
+  
+  private static long[] sorted(long[] ids) {
+    long[] copy = ids.clone();
+    Arrays.sort(copy);
+    
+    return copy;
+  }
+  
+  @Test
+  public void testFirstRequestGetsSnapshot() {
+    MarkingChangeLog log = new MarkingChangeLog(8);
+    add(log, 3);
+    add(log, 1);
+    
+    MarkingChangeLog.Changes changes = log.getChangesSince(0, 0, mStore);
+    
+    assertTrue(changes.isSnapshot());
+    assertArrayEquals(new long[] {1, 3}, changes.getAdded());
+    assertEquals(log.getEpoch(), changes.getEpoch());
+    assertEquals(log.getGeneration(), changes.getGeneration());
+  }
+  
+  @Test
+  public void testNoChanges() {
+    MarkingChangeLog log = new MarkingChangeLog(8);
+    add(log, 1);
+    
+    MarkingChangeLog.Changes changes = log.getChangesSince(log.getEpoch(), log.getGeneration(), mStore);
+    
+    assertFalse(changes.isSnapshot());
+    assertEquals(0, changes.getAdded().length);
+    assertEquals(0, changes.getRemoved().length);
+    assertEquals(-1, changes.getRemovedBelow());
+  }
+  
+  @Test
+  public void testAddAndRemoveAreMerged() {
+    MarkingChangeLog log = new MarkingChangeLog(16);
+    add(log, 1);
+    add(log, 2);
+    long generation = log.getGeneration();
+    
+    add(log, 3);
+    remove(log, 1);
+    add(log, 4);
+    remove(log, 4);
+    remove(log, 2);
+    add(log, 2);
+    
+    MarkingChangeLog.Changes changes = log.getChangesSince(log.getEpoch(), generation, mStore);
+    
+    assertFalse(changes.isSnapshot());
+    assertArrayEquals(new long[] {2, 3}, sorted(changes.getAdded()));
+    assertArrayEquals(new long[] {1, 4}, sorted(changes.getRemoved()));
+    assertEquals(generation + 6, changes.getGeneration());
+  }
+  
+  @Test
+  public void testRemoveBelowIsMerged() {
+    MarkingChangeLog log = new MarkingChangeLog(16);
+    add(log, 20);
+    long generation = log.getGeneration();
+    
+    add(log, 5);
+    remove(log, 20);
+    add(log, 30);
+    removeBelow(log, 10);
+    
+    /* Added after the removal below, so it has to be kept */
+    add(log, 7);
+    
+    MarkingChangeLog.Changes changes = log.getChangesSince(log.getEpoch(), generation, mStore);
+    
+    assertEquals(10, changes.getRemovedBelow());
+    assertArrayEquals(new long[] {7, 30}, sorted(changes.getAdded()));
+    assertArrayEquals(new long[] {20}, changes.getRemoved());
+    
+    /* Applied in the documented order the client gets the current markings */
+    MarkingStore client = new MarkingStore();
+    client.add(20);
+    client.removeBelow(changes.getRemovedBelow());
+    
+    for(long programId : changes.getRemoved()) {
+      client.remove(programId);
+    }
+    
+    client.addAll(changes.getAdded());
+    
+    assertArrayEquals(mStore.toArray(), client.toArray());
+  }
+  
+  @Test
+  public void testWraparoundFallsBackToSnapshot() {
+    MarkingChangeLog log = new MarkingChangeLog(4);
+    long generation = log.getGeneration();
+    
+    for(long programId = 1; programId <= 10; programId++) {
+      add(log, programId);
+    }
+    
+    /* Only the last 4 changes are kept */
+    MarkingChangeLog.Changes tooOld = log.getChangesSince(log.getEpoch(), generation + 5, mStore);
+    assertTrue(tooOld.isSnapshot());
+    assertEquals(10, tooOld.getAdded().length);
+    
+    MarkingChangeLog.Changes oldest = log.getChangesSince(log.getEpoch(), generation + 6, mStore);
+    assertFalse(oldest.isSnapshot());
+    assertArrayEquals(new long[] {7, 8, 9, 10}, sorted(oldest.getAdded()));
+    
+    MarkingChangeLog.Changes latest = log.getChangesSince(log.getEpoch(), generation + 9, mStore);
+    assertArrayEquals(new long[] {10}, latest.getAdded());
+  }
+  
+  @Test
+  public void testResetFallsBackToSnapshot() {
+    MarkingChangeLog log = new MarkingChangeLog(8);
+    add(log, 1);
+    long generation = log.getGeneration();
+    
+    add(log, 2);
+    mStore.clear();
+    log.reset();
+    add(log, 3);
+    
+    MarkingChangeLog.Changes changes = log.getChangesSince(log.getEpoch(), generation, mStore);
+    
+    assertTrue(changes.isSnapshot());
+    assertArrayEquals(new long[] {3}, changes.getAdded());
+    
+    /* Changes after the reset are logged again */
+    long afterReset = changes.getGeneration();
+    add(log, 4);
+    
+    assertArrayEquals(new long[] {4}, log.getChangesSince(log.getEpoch(), afterReset, mStore).getAdded());
+  }
+  
+  @Test
+  public void testOtherEpochAndFutureGenerationFallBackToSnapshot() {
+    MarkingChangeLog log = new MarkingChangeLog(8);
+    MarkingChangeLog restarted = new MarkingChangeLog(8);
+    
+    assertNotEquals(log.getEpoch(), restarted.getEpoch());
+    
+    add(log, 1);
+    
+    /* A generation of another log is never compared with this one */
+    assertTrue(log.getChangesSince(restarted.getEpoch(), log.getGeneration() - 1, mStore).isSnapshot());
+    assertTrue(log.getChangesSince(log.getEpoch(), log.getGeneration() + 1, mStore).isSnapshot());
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that the marking journal restores the markings it was written with.
+ *
+ * @author agent
+ */
+public class MarkingJournalTest {
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+  
+  private static long[] ids(int count) {
+    long[] ids = new long[count];
+    
+    for(int i = 0; i < count; i++) {
+      ids[i] = 1000000L + i;
+    }
+    
+    return ids;
+  }
+  
+  private MarkingStore load() throws IOException {
+    MarkingStore store = new MarkingStore();
+    new MarkingJournal(mFolder.getRoot()).load(store);
+    
+    return store;
+  }
+  
+  @Test
+  public void testSnapshotAndRemoveBelowRoundTrip() throws IOException {
+    MarkingJournal journal = new MarkingJournal(mFolder.getRoot());
+    
+    assertFalse(journal.exists());
+    
+    journal.compact(ids(100000));
+    journal.append(new byte[] {MarkingJournal.OP_REMOVE_BELOW, MarkingJournal.OP_ADD, MarkingJournal.OP_REMOVE},
+        new long[] {1040000L, 5L, 1050000L}, 3);
+    
+    assertTrue(journal.exists());
+    
+    MarkingStore expected = new MarkingStore();
+    expected.addAll(ids(100000));
+    expected.removeBelow(1040000L);
+    expected.add(5L);
+    expected.remove(1050000L);
+    
+    MarkingStore loaded = load();
+    
+    assertEquals(60000, loaded.size());
+    assertArrayEquals(expected.toArray(), loaded.toArray());
+  }
+  
+  @Test
+  public void testCompactionReplacesJournal() throws IOException {
+    MarkingJournal journal = new MarkingJournal(mFolder.getRoot());
+    
+    journal.append(new byte[] {MarkingJournal.OP_ADD, MarkingJournal.OP_ADD}, new long[] {1, 2}, 2);
+    journal.compact(new long[] {2, 3});
+    journal.append(new byte[] {MarkingJournal.OP_CLEAR, MarkingJournal.OP_ADD}, new long[] {-1, 7}, 2);
+    
+    assertArrayEquals(new long[] {7}, load().toArray());
+  }
+  
+  @Test
+  public void testPersisterWritesBatchesInOrder() throws IOException {
+    MarkingPersister persister = new MarkingPersister(new MarkingJournal(mFolder.getRoot()), new long[0]);
+    
+    persister.enqueue(MarkingJournal.OP_ADD, 4);
+    persister.enqueueAll(MarkingJournal.OP_ADD, ids(40));
+    persister.enqueue(MarkingJournal.OP_REMOVE, 1000010L);
+    persister.enqueueAll(MarkingJournal.OP_ADD, new long[] {1000010L, 2});
+    persister.enqueue(MarkingJournal.OP_REMOVE, 4);
+    persister.close();
+    
+    MarkingStore expected = new MarkingStore();
+    expected.addAll(ids(40));
+    expected.add(2);
+    
+    assertArrayEquals(expected.toArray(), load().toArray());
+  }
+  
+  @Test
+  public void testPersisterRecordsJournalWrites() {
+    CallMetrics metrics = new CallMetrics(new String[] {"save", "writeMarkings"});
+    MarkingPersister persister = new MarkingPersister(new MarkingJournal(mFolder.getRoot()), new long[0], metrics, 1);
+    
+    persister.flush();
+    assertEquals(0, metrics.getCount(1));
+    
+    persister.enqueueAll(MarkingJournal.OP_ADD, ids(10));
+    persister.close();
+    
+    assertEquals(1, metrics.getCount(1));
+    assertEquals(0, metrics.getCount(0));
+  }
+  
+  @Test
+  public void testIncompleteRecordIsIgnored() throws IOException {
+    MarkingJournal journal = new MarkingJournal(mFolder.getRoot());
+    journal.append(new byte[] {MarkingJournal.OP_ADD, MarkingJournal.OP_ADD}, new long[] {1, 2}, 2);
+    
+    File file = new File(mFolder.getRoot(), "markings.journal");
+    RandomAccessFile out = new RandomAccessFile(file, "rw");
+    
+    try {
+      out.setLength(out.length() - 3);
+    } finally {
+      out.close();
+    }
+    
+    assertArrayEquals(new long[] {1}, load().toArray());
+    assertEquals(9, file.length());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Hammers the marking store from many threads like concurrent binder calls.
+ *
+ * @author agent
+ */
+public class MarkingStoreConcurrencyTest {
+  private static final int WRITERS = 8;
+  private static final int READERS = 4;
+  private static final int OPERATIONS = 20000;
+  private static final int IDS_PER_WRITER = 500;
+  
+  @Test(timeout = 60000)
+  public void testConcurrentMarkUnmarkAndIsMarked() throws Exception {
+    final MarkingStore store = new MarkingStore();
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicBoolean writing = new AtomicBoolean(true);
+    
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+    List<Future<boolean[]>> writers = new ArrayList<Future<boolean[]>>();
+    List<Future<Void>> readers = new ArrayList<Future<Void>>();
+    
+    try {
+      for(int w = 0; w < WRITERS; w++) {
+        final int writer = w;
+        
+        /* Every writer owns its ids, so it knows which of them have to be marked */
+        writers.add(executor.submit(new Callable<boolean[]>() {
+          @Override
+          public boolean[] call() throws Exception {
+            Random random = new Random(writer);
+            boolean[] marked = new boolean[IDS_PER_WRITER];
+            start.await();
+            
+            for(int i = 0; i < OPERATIONS; i++) {
+              int index = random.nextInt(IDS_PER_WRITER);
+              long programId = (long)index * WRITERS + writer;
+              
+              if(random.nextBoolean()) {
+                assertEquals(!marked[index], store.add(programId));
+                marked[index] = true;
+              }
+              else {
+                assertEquals(marked[index], store.remove(programId));
+                marked[index] = false;
+              }
+              
+              assertEquals(marked[index], store.contains(programId));
+            }
+            
+            return marked;
+          }
+        }));
+      }
+      
+      for(int r = 0; r < READERS; r++) {
+        final int reader = r;
+        
+        readers.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            Random random = new Random(100 + reader);
+            start.await();
+            
+            while(writing.get()) {
+              store.contains(random.nextInt(IDS_PER_WRITER * WRITERS));
+              
+              long[] ids = store.toArray();
+              
+              for(int i = 1; i < ids.length; i++) {
+                if(ids[i - 1] >= ids[i]) {
+                  throw new AssertionError("snapshot not sorted at " + i + ": " + Arrays.toString(ids));
+                }
+              }
+            }
+            
+            return null;
+          }
+        }));
+      }
+      
+      start.countDown();
+      
+      List<Long> expected = new ArrayList<Long>();
+      
+      for(int w = 0; w < WRITERS; w++) {
+        boolean[] marked = writers.get(w).get();
+        
+        for(int index = 0; index < IDS_PER_WRITER; index++) {
+          if(marked[index]) {
+            expected.add((long)index * WRITERS + w);
+          }
+        }
+      }
+      
+      writing.set(false);
+      
+      for(Future<Void> reader : readers) {
+        reader.get();
+      }
+      
+      long[] expectedIds = new long[expected.size()];
+      
+      for(int i = 0; i < expectedIds.length; i++) {
+        expectedIds[i] = expected.get(i);
+      }
+      
+      Arrays.sort(expectedIds);
+      
+      assertArrayEquals(expectedIds, store.toArray());
+    } finally {
+      writing.set(false);
+      executor.shutdownNow();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+}
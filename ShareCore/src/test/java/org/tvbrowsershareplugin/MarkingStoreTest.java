@@ -0,0 +1,209 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Tests the marking store.
+ *
+ * @author agent
+ */
+public class MarkingStoreTest {
+  @Test
+  public void testAddContainsRemove() {
+    MarkingStore store = new MarkingStore();
+    
+    assertTrue(store.add(30));
+    assertTrue(store.add(10));
+    assertTrue(store.add(20));
+    assertFalse(store.add(20));
+    
+    assertTrue(store.contains(10));
+    assertFalse(store.contains(15));
+    assertEquals(3, store.size());
+    assertArrayEquals(new long[] {10, 20, 30}, store.toArray());
+    
+    assertTrue(store.remove(20));
+    assertFalse(store.remove(20));
+    assertArrayEquals(new long[] {10, 30}, store.toArray());
+    
+    store.clear();
+    assertEquals(0, store.size());
+    assertFalse(store.contains(10));
+  }
+  
+  @Test
+  public void testAddAll() {
+    MarkingStore store = new MarkingStore();
+    store.add(5);
+    
+    assertEquals(3, store.addAll(new long[] {9, 1, 5, 3, 9}));
+    assertArrayEquals(new long[] {1, 3, 5, 9}, store.toArray());
+    assertEquals(0, store.addAll(new long[] {3, 9}));
+  }
+  
+  @Test
+  public void testRemoveAll() {
+    MarkingStore store = new MarkingStore();
+    store.addAll(new long[] {1, 3, 5, 7, 9});
+    store.removeBelow(3);
+    
+    assertEquals(2, store.removeAll(new long[] {9, 1, 3, 4, 3}));
+    assertArrayEquals(new long[] {5, 7}, store.toArray());
+    assertEquals(0, store.removeAll(new long[] {1, 6}));
+    assertTrue(store.contains(5));
+  }
+  
+  @Test
+  public void testSnapshotIsSharedUntilChange() {
+    MarkingStore store = new MarkingStore();
+    store.addAll(new long[] {1, 2, 3});
+    
+    long[] snapshot = store.toArray();
+    
+    assertSame(snapshot, store.toArray());
+    
+    store.add(4);
+    
+    assertArrayEquals(new long[] {1, 2, 3}, snapshot);
+    assertArrayEquals(new long[] {1, 2, 3, 4}, store.toArray());
+  }
+  
+  @Test
+  public void testRemoveBelowWith100kIds() {
+    MarkingStore store = new MarkingStore();
+    long[] ids = new long[100000];
+    
+    for(int i = 0; i < ids.length; i++) {
+      ids[i] = i * 2L;
+    }
+    
+    store.addAll(ids);
+    
+    assertEquals(0, store.removeBelow(0));
+    assertEquals(25000, store.removeBelow(50000));
+    assertEquals(75000, store.size());
+    assertFalse(store.contains(49998));
+    assertTrue(store.contains(50000));
+    
+    /* An id between two marked ids */
+    assertEquals(1, store.removeBelow(50001));
+    assertEquals(50002, store.toArray()[0]);
+    
+    store.add(10);
+    assertTrue(store.contains(10));
+    assertEquals(1, store.removeBelow(50002));
+    
+    assertEquals(74999, store.removeBelow(Long.MAX_VALUE));
+    assertEquals(0, store.size());
+  }
+  
+  @Test
+  public void testRandomOperationsMatchTreeSet() {
+    Random random = new Random(42);
+    MarkingStore store = new MarkingStore();
+    TreeSet<Long> expected = new TreeSet<Long>();
+    long lowest = 0;
+    
+    for(int i = 0; i < 300000; i++) {
+      long programId = lowest + random.nextInt(5000);
+      int op = random.nextInt(100);
+      
+      if(op < 55) {
+        assertEquals(expected.add(programId), store.add(programId));
+      }
+      else if(op < 95) {
+        assertEquals(expected.remove(programId), store.remove(programId));
+      }
+      else if(op < 99) {
+        assertEquals(expected.contains(programId), store.contains(programId));
+      }
+      else {
+        lowest += random.nextInt(50);
+        int removed = expected.headSet(lowest).size();
+        expected.headSet(lowest).clear();
+        
+        assertEquals(removed, store.removeBelow(lowest));
+      }
+    }
+    
+    assertEquals(expected.size(), store.size());
+    
+    long[] ids = store.toArray();
+    int i = 0;
+    
+    for(Long programId : expected) {
+      assertEquals(programId.longValue(), ids[i++]);
+    }
+  }
+  
+  @Test
+  public void testContainsDoesNotAllocate() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    
+    MarkingStore store = new MarkingStore();
+    long[] ids = new long[10000];
+    
+    for(int i = 0; i < ids.length; i++) {
+      ids[i] = 1000000L + i * 3;
+    }
+    
+    store.addAll(ids);
+    
+    /* Warm up, so the measured calls run compiled */
+    int found = probe(store, 200000);
+    
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    found += probe(store, 1000000);
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+    
+    assertTrue(found > 0);
+    
+    /* A single allocation per probe would be at least 16 MB */
+    assertTrue("allocated " + allocated + " bytes", allocated < 4096);
+  }
+  
+  private static int probe(MarkingStore store, int count) {
+    int found = 0;
+    
+    for(int i = 0; i < count; i++) {
+      if(store.contains(1000000L + (i % 40000))) {
+        found++;
+      }
+    }
+    
+    return found;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the compiled share templates and the share formatter.
+ *
+ * @author agent
+ */
+public class ShareTemplateTest {
+  private static ShareTemplate.Values values(final String title, final String episode, final String description) {
+    return new ShareTemplate.Values() {
+      @Override
+      public CharSequence get(int field) {
+        switch(field) {
+          case ShareTemplate.FIELD_TITLE: return title;
+          case ShareTemplate.FIELD_EPISODE: return episode;
+          case ShareTemplate.FIELD_DESCRIPTION: return description;
+          case ShareTemplate.FIELD_CHANNEL: return "Das Erste";
+        }
+        
+        return null;
+      }
+    };
+  }
+  
+  @Test
+  public void testPlaceholders() {
+    ShareTemplate template = ShareTemplate.compile("{channel}: {title}");
+    
+    assertEquals("Das Erste: Tatort", ShareFormatter.render(template, values("Tatort", null, null)));
+  }
+  
+  @Test
+  public void testOptionalSectionIsOnlyRenderedWithValue() {
+    ShareTemplate template = ShareTemplate.compile("{title}[ - {episode}]");
+    
+    assertEquals("Tatort - Borowski", ShareFormatter.render(template, values("Tatort", "Borowski", null)));
+    assertEquals("Tatort", ShareFormatter.render(template, values("Tatort", null, null)));
+  }
+  
+  @Test
+  public void testUnmatchedBracketIsText() {
+    ShareTemplate template = ShareTemplate.compile("{title} [ {episode}");
+    
+    assertEquals("Tatort [ Borowski", ShareFormatter.render(template, values("Tatort", "Borowski", null)));
+    assertEquals("Tatort [ ", ShareFormatter.render(template, values("Tatort", null, null)));
+    
+    template = ShareTemplate.compile("{title}] [a [{episode}]");
+    
+    assertEquals("Tatort] [a Borowski", ShareFormatter.render(template, values("Tatort", "Borowski", null)));
+    assertEquals("Tatort] [a ", ShareFormatter.render(template, values("Tatort", null, null)));
+  }
+  
+  @Test
+  public void testDoubledBracketsAreText() {
+    ShareTemplate template = ShareTemplate.compile("Tip [[A]]: {title}[ [[{episode}]]]");
+    
+    assertEquals("Tip [A]: Tatort [Borowski]", ShareFormatter.render(template, values("Tatort", "Borowski", null)));
+    assertEquals("Tip [A]: Tatort", ShareFormatter.render(template, values("Tatort", null, null)));
+  }
+  
+  @Test
+  public void testUsesField() {
+    ShareTemplate template = ShareTemplate.compile("{title}[\n\n{description}]");
+    
+    assertTrue(template.usesField(ShareTemplate.FIELD_TITLE));
+    assertTrue(template.usesField(ShareTemplate.FIELD_DESCRIPTION));
+    assertFalse(template.usesField(ShareTemplate.FIELD_CHANNEL));
+  }
+  
+  @Test
+  public void testDefaultMessageTemplate() {
+    ShareTemplate template = ShareTemplate.compile(ShareSettings.createDefaultMessageTemplate(false, true));
+    
+    assertEquals("Das Erste: \n\nTatort\n\nKrimi", ShareFormatter.render(template, values("Tatort", null, "Krimi")));
+  }
+  
+  @Test
+  public void testShortDescriptionIsCut() {
+    StringBuilder longText = new StringBuilder();
+    
+    while(longText.length() <= ShareFormatter.MAX_SHORT_DESCRIPTION_LENGTH) {
+      longText.append("Eine lange Beschreibung. ");
+    }
+    
+    String description = ShareFormatter.selectDescription(longText.toString(), null, true);
+    
+    assertTrue(description.length() <= ShareFormatter.MAX_SHORT_DESCRIPTION_LENGTH + 1);
+    assertTrue(description.endsWith("…"));
+    assertEquals("Voll", ShareFormatter.selectDescription(null, "Voll", true));
+    assertEquals("Voll", ShareFormatter.selectDescription("Kurz", "Voll", false));
+  }
+}
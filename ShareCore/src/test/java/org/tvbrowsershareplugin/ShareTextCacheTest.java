@@ -0,0 +1,87 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests that the share text cache never returns texts of other settings or date formats.
+ *
+ * @author agent
+ */
+public class ShareTextCacheTest {
+  private static ShareSettings createSettings() {
+    return new ShareSettings(true, true, false, true, false, true, "", "{title}");
+  }
+  
+  @Test
+  public void testGetSameSettingsAndGeneration() {
+    ShareTextCache cache = new ShareTextCache(4);
+    ShareSettings settings = createSettings();
+    
+    cache.put(1, settings, 0, "subject", "message");
+    
+    ShareTextCache.Entry entry = cache.get(1, settings, 0);
+    
+    assertNotNull(entry);
+    assertEquals("subject", entry.getSubject());
+    assertEquals("message", entry.getMessage());
+  }
+  
+  @Test
+  public void testOtherSettingsAreNotUsed() {
+    ShareTextCache cache = new ShareTextCache(4);
+    
+    cache.put(1, createSettings(), 0, "subject", "message");
+    
+    assertNull(cache.get(1, createSettings(), 0));
+  }
+  
+  @Test
+  public void testPutAfterInvalidationIsNotUsed() {
+    DateFormatCache formats = new DateFormatCache(null);
+    ShareTextCache cache = new ShareTextCache(4);
+    ShareSettings settings = createSettings();
+    
+    /* A preparation started before the locale change, but puts its text after the clear */
+    int generation = formats.getGeneration();
+    formats.invalidate();
+    cache.clear();
+    cache.put(1, settings, generation, "subject", "message");
+    
+    assertNull(cache.get(1, settings, formats.getGeneration()));
+  }
+  
+  @Test
+  public void testLeastRecentlyUsedIsDropped() {
+    ShareTextCache cache = new ShareTextCache(2);
+    ShareSettings settings = createSettings();
+    
+    cache.put(1, settings, 0, "1", "1");
+    cache.put(2, settings, 0, "2", "2");
+    cache.get(1, settings, 0);
+    cache.put(3, settings, 0, "3", "3");
+    
+    assertNotNull(cache.get(1, settings, 0));
+    assertNull(cache.get(2, settings, 0));
+    assertNotNull(cache.get(3, settings, 0));
+  }
+}
@@ -21,6 +21,7 @@ package org.tvbrowser.devplugin;
 
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.util.SparseArray;
 
 /**
  * A parcelable class with informations about a TV-Browser channel.
@@ -28,7 +29,20 @@ import android.os.Parcelable;
  * @author René Mach
  */
 public final class Channel implements Parcelable {
-  private static final int VERSION = 1;
+  /** The first Parcel format, understood by all TV-Browser versions and always written */
+  public static final int PARCEL_VERSION_1 = 1;
+  /** The compact Parcel format with a presence bitmask, only read */
+  public static final int PARCEL_VERSION_2 = 2;
+  
+  /* The presence flags of the Parcel format 2 */
+  private static final int HAS_NAME = 1;
+  private static final int HAS_ICON = 2;
+  
+  /* The maximum number of interned channels */
+  private static final int MAX_INTERNED_CHANNELS = 512;
+  
+  /* The channels read without icon, by their id, guarded by itself */
+  private static final SparseArray<Channel> INTERNED_CHANNELS = new SparseArray<Channel>();
   
   private int mId;
   private String mChannelName;
@@ -96,38 +110,106 @@ public final class Channel implements Parcelable {
   }
   
   /**
-   * Gets the interface version of this Channel.
+   * Gets the interface version of this Channel, the Parcel format that is written.
    * <o>
    * @return The interface version of this Channel.
    */
   public int getInterfaceVersion() {
-    return VERSION;
+    return PARCEL_VERSION_1;
   }
 
   @Override
   public int describeContents() {
     return 0;
   }
+  
+  /**
+   * Reads a Channel from the given Parcel without its icon.
+   * <p>
+   * The icon data is skipped without copying it and the same instance
+   * is returned for all reads of a channel with the same id and name,
+   * so the Programs of a batch share their Channels.
+   * <p>
+   * @param source The Parcel to read the Channel from.
+   * @return The read Channel, its icon is always <code>null</code>.
+   */
+  static Channel readInternedFromParcel(Parcel source) {
+    int version = source.readInt();
+    int id = source.readInt();
+    String channelName;
+    
+    if(version >= 2) {
+      int fields = source.readInt();
+      channelName = (fields & HAS_NAME) != 0 ? source.readString() : null;
+      
+      if((fields & HAS_ICON) != 0) {
+        skipByteArray(source);
+      }
+    }
+    else {
+      channelName = source.readString();
+      
+      if(source.readInt() > 0) {
+        skipByteArray(source);
+      }
+    }
+    
+    synchronized(INTERNED_CHANNELS) {
+      Channel channel = INTERNED_CHANNELS.get(id);
+      
+      if(channel == null || (channelName != null ? !channelName.equals(channel.mChannelName) : channel.mChannelName != null)) {
+        if(INTERNED_CHANNELS.size() >= MAX_INTERNED_CHANNELS) {
+          INTERNED_CHANNELS.clear();
+        }
+        
+        channel = new Channel(id, channelName, null);
+        INTERNED_CHANNELS.put(id, channel);
+      }
+      
+      return channel;
+    }
+  }
+
+  /*
+   * Moves the position of the Parcel behind a byte array: its length and the data padded to 4 bytes.
+   */
+  private static void skipByteArray(Parcel source) {
+    int size = source.readInt();
+    
+    if(size > 0) {
+      source.setDataPosition(source.dataPosition() + ((size + 3) & ~3));
+    }
+  }
 
   private void readFromParcel(Parcel source) {
-    source.readInt(); // read version
+    int version = source.readInt(); // read version
     mId = source.readInt();
-    mChannelName = source.readString();
-    
-    int iconSize = source.readInt();
     
-    if(iconSize > 0) {
-      mChannelIcon = new byte[iconSize];
-      source.readByteArray(mChannelIcon);
+    if(version >= 2) {
+      int fields = source.readInt();
+      
+      mChannelName = (fields & HAS_NAME) != 0 ? source.readString() : null;
+      
+      mChannelIcon = (fields & HAS_ICON) != 0 ? source.createByteArray() : null;
     }
     else {
-      mChannelIcon = null;
+      mChannelName = source.readString();
+      
+      int iconSize = source.readInt();
+      
+      if(iconSize > 0) {
+        mChannelIcon = new byte[iconSize];
+        source.readByteArray(mChannelIcon);
+      }
+      else {
+        mChannelIcon = null;
+      }
     }
   }
   
   @Override
   public void writeToParcel(Parcel dest, int flags) {
-    dest.writeInt(VERSION);
+    dest.writeInt(PARCEL_VERSION_1);
     dest.writeInt(mId);
     dest.writeString(mChannelName);
     dest.writeInt((mChannelIcon != null ? mChannelIcon.length : 0));
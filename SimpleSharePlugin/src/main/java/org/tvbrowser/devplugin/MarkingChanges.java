@@ -0,0 +1,166 @@
+/*
+ * Plugin Interface for TV-Browser for Android
+ * Copyright (c) 2026 agent (agent@local)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software 
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowser.devplugin;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * A parcelable class with the changes of the programs marked by a plugin
+ * since a marking generation.
+ * <p>
+ * To apply the changes, the ids below {@link #getRemovedBelow()} are removed first,
+ * then the removed ids and last the added ids. If {@link #isSnapshot()} returns
+ * <code>true</code> the added ids are all marked ids and replace the known ids.
+ * 
+ * @author agent
+ */
+public final class MarkingChanges implements Parcelable {
+  private static final int VERSION = 1;
+  
+  private long mEpoch;
+  private long mGeneration;
+  private boolean mSnapshot;
+  private long mRemovedBelow;
+  private long[] mAdded;
+  private long[] mRemoved;
+  
+  public static final Creator<MarkingChanges> CREATOR = new Creator<MarkingChanges>() {
+    @Override
+    public MarkingChanges createFromParcel(Parcel source) {
+      return new MarkingChanges(source);
+    }
+
+    @Override
+    public MarkingChanges[] newArray(int size) {
+      return new MarkingChanges[size];
+    }
+  };
+  
+  /**
+   * Creates an instance of this class.
+   * 
+   * @param epoch The epoch of the marking generations of the plugin.
+   * @param generation The marking generation the changes lead to.
+   * @param snapshot <code>true</code> if the added ids are all marked ids.
+   * @param removedBelow The id all smaller ids were unmarked below or <code>-1</code> if there is none.
+   * @param added The marked ids.
+   * @param removed The unmarked ids.
+   */
+  public MarkingChanges(long epoch, long generation, boolean snapshot, long removedBelow, long[] added, long[] removed) {
+    mEpoch = epoch;
+    mGeneration = generation;
+    mSnapshot = snapshot;
+    mRemovedBelow = removedBelow;
+    mAdded = added;
+    mRemoved = removed;
+  }
+  
+  /**
+   * Creates an instance of this class from the given Parcel.
+   * <p>
+   * @param source The Parcel to read the values of this MarkingChanges.
+   */
+  public MarkingChanges(Parcel source) {
+    readFromParcel(source);
+  }
+  
+  @Override
+  public int describeContents() {
+    return 0;
+  }
+  
+  /**
+   * Gets the epoch of the marking generations, to use for the next request of changes.
+   * Generations of different epochs can't be compared, e. g. after a restart of the plugin.
+   * <p>
+   * @return The epoch of the marking generations.
+   */
+  public long getEpoch() {
+    return mEpoch;
+  }
+  
+  /**
+   * Gets the marking generation the changes lead to, to use
+   * for the next request of changes.
+   * <p>
+   * @return The marking generation of the changes.
+   */
+  public long getGeneration() {
+    return mGeneration;
+  }
+  
+  /**
+   * Gets if the changes are a snapshot of all marked ids.
+   * <p>
+   * @return <code>true</code> if the added ids replace all known ids, <code>false</code> otherwise.
+   */
+  public boolean isSnapshot() {
+    return mSnapshot;
+  }
+  
+  /**
+   * Gets the id all smaller ids were unmarked below.
+   * <p>
+   * @return The id or <code>-1</code> if no ids were unmarked this way.
+   */
+  public long getRemovedBelow() {
+    return mRemovedBelow;
+  }
+  
+  /**
+   * Gets the marked program ids.
+   * <p>
+   * @return The marked program ids.
+   */
+  public long[] getAdded() {
+    return mAdded;
+  }
+  
+  /**
+   * Gets the unmarked program ids.
+   * <p>
+   * @return The unmarked program ids.
+   */
+  public long[] getRemoved() {
+    return mRemoved;
+  }
+  
+  private void readFromParcel(Parcel source) {
+    source.readInt(); // read version
+    mEpoch = source.readLong();
+    mGeneration = source.readLong();
+    mSnapshot = source.readByte() == 1;
+    mRemovedBelow = source.readLong();
+    mAdded = source.createLongArray();
+    mRemoved = source.createLongArray();
+  }
+  
+  @Override
+  public void writeToParcel(Parcel dest, int flags) {
+    dest.writeInt(VERSION);
+    dest.writeLong(mEpoch);
+    dest.writeLong(mGeneration);
+    dest.writeByte((byte)(mSnapshot ? 1 : 0));
+    dest.writeLong(mRemovedBelow);
+    dest.writeLongArray(mAdded);
+    dest.writeLongArray(mRemoved);
+  }
+}
@@ -28,7 +28,39 @@ import android.os.Parcelable;
  * @author René Mach
  */
 public final class Program implements Parcelable {
-  private static final int VERSION = 1;
+  /** The first Parcel format, understood by all TV-Browser versions and always written */
+  public static final int PARCEL_VERSION_1 = 1;
+  /** The compact Parcel format with a presence bitmask instead of type tags, only read */
+  public static final int PARCEL_VERSION_2 = 2;
+  
+  /* The presence flags of the Parcel format 2 */
+  private static final int HAS_TITLE = 1;
+  private static final int HAS_SHORT_DESCRIPTION = 2;
+  private static final int HAS_DESCRIPTION = 4;
+  private static final int HAS_EPISODE_TITLE = 8;
+  
+  /** Flag for {@link #setSkippedFields(int)} to skip the title */
+  public static final int SKIP_TITLE = 1;
+  /** Flag for {@link #setSkippedFields(int)} to skip the short description */
+  public static final int SKIP_SHORT_DESCRIPTION = 2;
+  /** Flag for {@link #setSkippedFields(int)} to skip the full description */
+  public static final int SKIP_DESCRIPTION = 4;
+  /** Flag for {@link #setSkippedFields(int)} to skip the episode title */
+  public static final int SKIP_EPISODE_TITLE = 8;
+  /** Flag for {@link #setSkippedFields(int)} to skip the icon of the channel and share equal channels */
+  public static final int SKIP_CHANNEL_ICON = 16;
+  
+  /* The type tags of Parcel.writeValue for null and String values */
+  private static final int VAL_NULL = -1;
+  private static final int VAL_STRING = 0;
+  
+  /* The fields the current thread doesn't read from a Parcel */
+  private static final ThreadLocal<int[]> SKIPPED_FIELDS = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[1];
+    }
+  };
   
   private long mId;
   private long mStartTime;
@@ -156,12 +188,26 @@ public final class Program implements Parcelable {
   }
   
   /**
-   * Gets the interface version of this Program.
+   * Gets the interface version of this Program, the Parcel format that is written.
    * <o>
    * @return The interface version of this Program.
    */
   public int getInterfaceVersion() {
-    return VERSION;
+    return PARCEL_VERSION_1;
+  }
+  
+  /**
+   * Sets the fields that are not read when the current thread creates
+   * Programs from a Parcel, the getters of skipped fields return <code>null</code>.
+   * <p>
+   * Skipped Strings are stepped over without being decoded, which saves
+   * the allocations for calls that only need a part of the program,
+   * e. g. only the id. The setting stays active until it is set to <code>0</code>.
+   * <p>
+   * @param fields The SKIP flags of the fields to skip or <code>0</code> to read all fields.
+   */
+  public static void setSkippedFields(int fields) {
+    SKIPPED_FIELDS.get()[0] = fields;
   }
 
   @Override
@@ -170,20 +216,100 @@ public final class Program implements Parcelable {
   }
 
   private void readFromParcel(Parcel source) {
-    source.readInt(); // read version
-    mId = source.readLong();
-    mStartTime = source.readLong();
-    mEndTime = source.readLong();
-    mTitle = source.readString();
-    mShortDescription = (String)source.readValue(String.class.getClassLoader());
-    mDescription = (String)source.readValue(String.class.getClassLoader());
-    mEpisodeTitle = (String)source.readValue(String.class.getClassLoader());
-    mChannel = new Channel(source);
+    int skipped = SKIPPED_FIELDS.get()[0];
+    
+    int version = source.readInt(); // read version
+    
+    if(version >= 2) {
+      int fields = source.readInt();
+      
+      mId = source.readLong();
+      mStartTime = source.readLong();
+      mEndTime = source.readLong();
+      mTitle = readPresentString(source, (fields & HAS_TITLE) != 0, (skipped & SKIP_TITLE) != 0);
+      mShortDescription = readPresentString(source, (fields & HAS_SHORT_DESCRIPTION) != 0, (skipped & SKIP_SHORT_DESCRIPTION) != 0);
+      mDescription = readPresentString(source, (fields & HAS_DESCRIPTION) != 0, (skipped & SKIP_DESCRIPTION) != 0);
+      mEpisodeTitle = readPresentString(source, (fields & HAS_EPISODE_TITLE) != 0, (skipped & SKIP_EPISODE_TITLE) != 0);
+    }
+    else {
+      mId = source.readLong();
+      mStartTime = source.readLong();
+      mEndTime = source.readLong();
+      
+      if((skipped & SKIP_TITLE) == 0) {
+        mTitle = source.readString();
+      }
+      else {
+        skipString(source);
+      }
+      
+      mShortDescription = readOptionalString(source, (skipped & SKIP_SHORT_DESCRIPTION) != 0);
+      mDescription = readOptionalString(source, (skipped & SKIP_DESCRIPTION) != 0);
+      mEpisodeTitle = readOptionalString(source, (skipped & SKIP_EPISODE_TITLE) != 0);
+    }
+    
+    if((skipped & SKIP_CHANNEL_ICON) == 0) {
+      mChannel = new Channel(source);
+    }
+    else {
+      mChannel = Channel.readInternedFromParcel(source);
+    }
+  }
+  
+  /*
+   * Reads a String written with writeValue, without looking up a class loader.
+   */
+  private static String readOptionalString(Parcel source, boolean skip) {
+    int position = source.dataPosition();
+    int type = source.readInt();
+    
+    if(type == VAL_NULL) {
+      return null;
+    }
+    else if(type != VAL_STRING) {
+      /* Not written by this class, let the Parcel handle it */
+      source.setDataPosition(position);
+      return (String)source.readValue(String.class.getClassLoader());
+    }
+    else if(skip) {
+      skipString(source);
+      return null;
+    }
+    
+    return source.readString();
+  }
+  
+  /*
+   * Reads a String of the Parcel format 2, that is only written if it is present.
+   */
+  private static String readPresentString(Parcel source, boolean present, boolean skip) {
+    if(!present) {
+      return null;
+    }
+    else if(skip) {
+      skipString(source);
+      return null;
+    }
+    
+    return source.readString();
+  }
+  
+  /*
+   * Moves the position of the Parcel behind a String written with writeString.
+   */
+  private static void skipString(Parcel source) {
+    int length = source.readInt();
+    
+    if(length >= 0) {
+      /* UTF-16 characters with a terminating 0, padded to 4 bytes */
+      int size = ((length + 1) * 2 + 3) & ~3;
+      source.setDataPosition(source.dataPosition() + size);
+    }
   }
   
   @Override
   public void writeToParcel(Parcel dest, int flags) {
-    dest.writeInt(VERSION);
+    dest.writeInt(PARCEL_VERSION_1);
     dest.writeLong(mId);
     dest.writeLong(mStartTime);
     dest.writeLong(mEndTime);
@@ -191,6 +317,7 @@ public final class Program implements Parcelable {
     dest.writeValue(mShortDescription);
     dest.writeValue(mDescription);
     dest.writeValue(mEpisodeTitle);
+    
     mChannel.writeToParcel(dest, flags);
   }
 }
@@ -0,0 +1,154 @@
+/*
+ * Plugin Interface for TV-Browser for Android
+ * Copyright (c) 2026 agent (agent@local)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software 
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowser.devplugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.os.ParcelFileDescriptor;
+import android.util.SparseArray;
+
+/**
+ * Exchanges large batches of programs through a memory mapped file
+ * instead of copying them through a Parcel.
+ * <p>
+ * The sender writes the batch with {@link ProgramCodec} into a file and
+ * passes its ParcelFileDescriptor, the receiver maps the file and reads
+ * the programs in chunks. The file is deleted directly after opening,
+ * so it only lives as long as the descriptor.
+ * 
+ * @author agent
+ */
+public final class ProgramTransport {
+  /**
+   * Receives the programs of a batch in chunks.
+   */
+  public interface Receiver {
+    /**
+     * @param programs The next chunk of programs of the batch.
+     */
+    void onPrograms(Program[] programs);
+  }
+  
+  private ProgramTransport() {}
+  
+  /**
+   * Writes the given programs into a file in the given directory.
+   * The icons of the channels are not written.
+   * <p>
+   * @param directory The directory for the file, e. g. the cache directory.
+   * @param programs The programs to write.
+   * @return The read only descriptor of the written file.
+   * @throws IOException If the file could not be written.
+   */
+  public static ParcelFileDescriptor write(File directory, Program[] programs) throws IOException {
+    ProgramCodec.Writer writer = new ProgramCodec.Writer(programs.length);
+    
+    for(Program program : programs) {
+      Channel channel = program.getChannel();
+      
+      writer.add(program.getId(), program.getStartTimeInUTC(), program.getEndTimeInUTC(), program.getTitle(),
+          program.getShortDescription(), program.getDescription(), program.getEpisodeTitle(),
+          channel.getChannelId(), channel.getChannelName());
+    }
+    
+    ByteBuffer data = writer.finish();
+    File file = File.createTempFile("programs", ".bin", directory);
+    
+    try {
+      FileOutputStream out = new FileOutputStream(file);
+      
+      try {
+        FileChannel channel = out.getChannel();
+        
+        while(data.hasRemaining()) {
+          channel.write(data);
+        }
+      } finally {
+        out.close();
+      }
+      
+      return ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+    } finally {
+      file.delete();
+    }
+  }
+  
+  /**
+   * Reads the programs of a file written with {@link #write(File, Program[])}.
+   * <p>
+   * Programs of the same channel share one Channel without icon.
+   * The descriptor is closed by this method.
+   * <p>
+   * @param data The descriptor of the file.
+   * @param chunkSize The maximum number of programs that are given to the receiver at once.
+   * @param receiver The receiver of the programs.
+   * @return The number of read programs.
+   * @throws IOException If the file could not be read or contains no valid batch.
+   */
+  public static int read(ParcelFileDescriptor data, final int chunkSize, final Receiver receiver) throws IOException {
+    ByteBuffer buffer;
+    FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(data);
+    
+    try {
+      /* The mapping stays valid after the descriptor is closed */
+      FileChannel channel = in.getChannel();
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      in.close();
+    }
+    
+    final SparseArray<Channel> channels = new SparseArray<Channel>();
+    final Program[][] chunk = {new Program[chunkSize]};
+    final int[] chunkCount = {0};
+    
+    int count = ProgramCodec.read(buffer, new ProgramCodec.Receiver() {
+      @Override
+      public void onProgram(long id, long startTime, long endTime, String title, String shortDescription, String description, String episodeTitle, int channelId, String channelName) {
+        Channel channel = channels.get(channelId);
+        
+        if(channel == null) {
+          channel = new Channel(channelId, channelName, null);
+          channels.put(channelId, channel);
+        }
+        
+        chunk[0][chunkCount[0]++] = new Program(id, startTime, endTime, title, shortDescription, description, episodeTitle, channel);
+        
+        if(chunkCount[0] == chunkSize) {
+          receiver.onPrograms(chunk[0]);
+          chunk[0] = new Program[chunkSize];
+          chunkCount[0] = 0;
+        }
+      }
+    });
+    
+    if(chunkCount[0] > 0) {
+      Program[] programs = new Program[chunkCount[0]];
+      System.arraycopy(chunk[0], 0, programs, 0, programs.length);
+      receiver.onPrograms(programs);
+    }
+    
+    return count;
+  }
+}
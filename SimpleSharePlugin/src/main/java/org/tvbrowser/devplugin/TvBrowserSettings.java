@@ -30,6 +30,7 @@ import android.os.Parcelable;
 public class TvBrowserSettings implements Parcelable {
   private static final int VERSION = 2;
   
+  private int mVersion;
   private boolean mUsesDarkTheme;
   private String mTvbVersion;
   private int mTvbVersionCode;
@@ -79,6 +80,7 @@ public class TvBrowserSettings implements Parcelable {
    * @param lastKnownDataDate The last known date of the data.
    */
   public TvBrowserSettings(boolean usesDarkTheme, String tvbVersion, int tvbVersionCode, long firstKnownProgramId, long lastKnownProgramId, long lastKnownDataDate) {
+    mVersion = VERSION;
     mUsesDarkTheme = usesDarkTheme;
     mTvbVersion = tvbVersion;
     mTvbVersionCode = tvbVersionCode;
@@ -96,6 +98,16 @@ public class TvBrowserSettings implements Parcelable {
     return mTvbVersion;
   }
   
+  /**
+   * Gets the version of the settings, the values of newer versions
+   * are only known if the version is high enough.
+   * <p>
+   * @return The version of the settings.
+   */
+  public int getVersion() {
+    return mVersion;
+  }
+  
   /**
    * Gets the version code of TV-Browser
    * <p>
@@ -156,6 +168,7 @@ public class TvBrowserSettings implements Parcelable {
   
   private void readFromParcel(Parcel source) {
     int version = source.readInt(); // read version
+    mVersion = version;
     mUsesDarkTheme = source.readByte() == 1;
     mTvbVersion = source.readString();
     
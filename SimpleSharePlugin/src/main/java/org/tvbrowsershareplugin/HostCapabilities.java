@@ -0,0 +1,142 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import org.tvbrowser.devplugin.TvBrowserSettings;
+
+/**
+ * An immutable snapshot of what the connected TV-Browser supports,
+ * resolved once on activation instead of asking TV-Browser on every call.
+ *
+ * @author agent
+ */
+public final class HostCapabilities {
+  /* The first version code of TV-Browser that supports marking with plugin icon */
+  private static final int TVB_VERSION_CODE_ICON_MARKING = 308;
+  
+  /**
+   * The capabilities used while TV-Browser is not connected or didn't answer.
+   */
+  public static final HostCapabilities UNKNOWN = new HostCapabilities(0, null, -1, false, -2, -2, 0);
+  
+  private final int mSettingsVersion;
+  private final String mTvbVersion;
+  private final int mTvbVersionCode;
+  private final boolean mUsingDarkTheme;
+  private final long mFirstKnownProgramId;
+  private final long mLastKnownProgramId;
+  private final long mLastKnownDataDate;
+  
+  private HostCapabilities(int settingsVersion, String tvbVersion, int tvbVersionCode, boolean usingDarkTheme, long firstKnownProgramId, long lastKnownProgramId, long lastKnownDataDate) {
+    mSettingsVersion = settingsVersion;
+    mTvbVersion = tvbVersion;
+    mTvbVersionCode = tvbVersionCode;
+    mUsingDarkTheme = usingDarkTheme;
+    mFirstKnownProgramId = firstKnownProgramId;
+    mLastKnownProgramId = lastKnownProgramId;
+    mLastKnownDataDate = lastKnownDataDate;
+  }
+  
+  /**
+   * Creates the capabilities from the settings of TV-Browser.
+   * <p>
+   * @param settings The settings of TV-Browser, may be <code>null</code>.
+   * @return The capabilities of TV-Browser or {@link #UNKNOWN} if the settings are <code>null</code>.
+   */
+  public static HostCapabilities from(TvBrowserSettings settings) {
+    if(settings == null) {
+      return UNKNOWN;
+    }
+    
+    return new HostCapabilities(settings.getVersion(), settings.getTvbVersion(), settings.getTvbVersionCode(), settings.isUsingDarkTheme(),
+        settings.getFirstKnownProgramId(), settings.getLastKnownProgramId(), settings.getLastKnownDataDate());
+  }
+  
+  /**
+   * Gets a copy of this capabilities with a new first known program id,
+   * e. g. after TV-Browser reported it with handleFirstKnownProgramId.
+   * {@link #UNKNOWN} stays unknown, so it is still resolved later.
+   * <p>
+   * @param firstKnownProgramId The new first known program id.
+   * @return The capabilities with the new first known program id.
+   */
+  public HostCapabilities withFirstKnownProgramId(long firstKnownProgramId) {
+    if(this == UNKNOWN || firstKnownProgramId == mFirstKnownProgramId) {
+      return this;
+    }
+    
+    return new HostCapabilities(mSettingsVersion, mTvbVersion, mTvbVersionCode, mUsingDarkTheme, firstKnownProgramId, mLastKnownProgramId, mLastKnownDataDate);
+  }
+  
+  /**
+   * Gets if TV-Browser supports marking with plugin icon.
+   * <p>
+   * @return <code>true</code> if programs can be marked with the plugin icon, <code>false</code> otherwise.
+   */
+  public boolean isIconMarkingSupported() {
+    return mTvbVersionCode >= TVB_VERSION_CODE_ICON_MARKING;
+  }
+  
+  /**
+   * @return The version of the settings TV-Browser sent or <code>0</code> if unknown.
+   */
+  public int getSettingsVersion() {
+    return mSettingsVersion;
+  }
+  
+  /**
+   * @return The version of TV-Browser or <code>null</code> if unknown.
+   */
+  public String getTvbVersion() {
+    return mTvbVersion;
+  }
+  
+  /**
+   * @return The version code of TV-Browser or <code>-1</code> if unknown.
+   */
+  public int getTvbVersionCode() {
+    return mTvbVersionCode;
+  }
+  
+  /**
+   * @return <code>true</code> if TV-Browser used the dark theme when the capabilities were resolved.
+   */
+  public boolean isUsingDarkTheme() {
+    return mUsingDarkTheme;
+  }
+  
+  /**
+   * @return The first known program id, <code>-1</code> if no data is available and <code>-2</code> if unknown.
+   */
+  public long getFirstKnownProgramId() {
+    return mFirstKnownProgramId;
+  }
+  
+  /**
+   * @return The last known program id, <code>-1</code> if no data is available and <code>-2</code> if unknown.
+   */
+  public long getLastKnownProgramId() {
+    return mLastKnownProgramId;
+  }
+  
+  /**
+   * @return The last known date of the data or <code>0</code> if no data is available.
+   */
+  public long getLastKnownDataDate() {
+    return mLastKnownDataDate;
+  }
+}
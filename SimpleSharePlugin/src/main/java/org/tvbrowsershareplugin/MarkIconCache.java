@@ -0,0 +1,144 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.SparseArray;
+
+/**
+ * Keeps the PNG data of the mark icon, so it is only read or encoded once.
+ *
+ * @author agent
+ */
+public final class MarkIconCache {
+  /* The densities of the bundled drawable folders, mdpi to xxhdpi */
+  private static final int[] DENSITY_BUCKETS = {160, 240, 320, 480};
+  
+  private final Resources mResources;
+  private final int mIconId;
+  
+  /* The PNG file of the icon for the density of the device */
+  private byte[] mIcon;
+  
+  /* Encoded icons for requested densities */
+  private final SparseArray<byte[]> mDensityIcons;
+  
+  /**
+   * Creates an instance of this class.
+   * <p>
+   * @param resources The resources to load the icon from.
+   * @param iconId The drawable resource id of the icon.
+   */
+  public MarkIconCache(Resources resources, int iconId) {
+    mResources = resources;
+    mIconId = iconId;
+    mDensityIcons = new SparseArray<byte[]>();
+  }
+  
+  /**
+   * Gets the PNG data of the icon for the density of the device.
+   * <p>
+   * The data is the PNG file of the best matching drawable folder,
+   * read without decoding.
+   * <p>
+   * @return The PNG data of the icon or <code>null</code> if it could not be read.
+   */
+  public synchronized byte[] getIcon() {
+    if(mIcon == null) {
+      try {
+        InputStream in = mResources.openRawResource(mIconId);
+        
+        try {
+          ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 1024));
+          byte[] buffer = new byte[4096];
+          int read;
+          
+          while((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+          }
+          
+          mIcon = out.toByteArray();
+        } finally {
+          in.close();
+        }
+      } catch(IOException e) {
+        e.printStackTrace();
+      }
+    }
+    
+    return mIcon;
+  }
+  
+  /**
+   * Gets the PNG data of the icon scaled for the given screen density.
+   * <p>
+   * The density is rounded up to the next bundled density, so at most one
+   * icon per drawable folder is encoded. It is encoded on the first request
+   * for a density and kept afterwards.
+   * <p>
+   * @param density The screen density in dpi, e. g. 320 for xhdpi.
+   * @return The PNG data of the icon for the given density.
+   */
+  public synchronized byte[] getIcon(int density) {
+    if(density <= 0) {
+      return getIcon();
+    }
+    
+    density = getDensityBucket(density);
+    byte[] icon = mDensityIcons.get(density);
+    
+    if(icon == null) {
+      BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inTargetDensity = density;
+      
+      Bitmap bitmap = BitmapFactory.decodeResource(mResources, mIconId, options);
+      
+      if(bitmap == null) {
+        return getIcon();
+      }
+      
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+      bitmap.recycle();
+      
+      icon = stream.toByteArray();
+      mDensityIcons.put(density, icon);
+    }
+    
+    return icon;
+  }
+  
+  /*
+   * Gets the smallest bundled density that is not smaller than the given density,
+   * or the largest bundled density for larger values.
+   */
+  private static int getDensityBucket(int density) {
+    for(int bucket : DENSITY_BUCKETS) {
+      if(density <= bucket) {
+        return bucket;
+      }
+    }
+    
+    return DENSITY_BUCKETS[DENSITY_BUCKETS.length - 1];
+  }
+}
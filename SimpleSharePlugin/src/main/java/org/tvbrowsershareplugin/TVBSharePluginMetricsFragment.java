@@ -0,0 +1,73 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin;
+
+import android.os.Bundle;
+import android.preference.Preference;
+import android.preference.Preference.OnPreferenceClickListener;
+import android.preference.PreferenceFragment;
+import android.preference.PreferenceScreen;
+
+/**
+ * The debug preferences fragment that shows the call metrics of the TVBrowserSharePlugin.
+ * 
+ * @author agent
+ */
+public class TVBSharePluginMetricsFragment extends PreferenceFragment {
+  @Override
+  public void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+    setPreferenceScreen(getPreferenceManager().createPreferenceScreen(getActivity()));
+  }
+  
+  @Override
+  public void onResume() {
+    super.onResume();
+    showMetrics();
+  }
+  
+  private void showMetrics() {
+    PreferenceScreen screen = getPreferenceScreen();
+    screen.removeAll();
+    
+    Preference reset = new Preference(getActivity());
+    reset.setTitle(R.string.pref_debug_metrics_reset);
+    reset.setOnPreferenceClickListener(new OnPreferenceClickListener() {
+      @Override
+      public boolean onPreferenceClick(Preference preference) {
+        TVBrowserSharePlugin.CALL_METRICS.reset();
+        showMetrics();
+        return true;
+      }
+    });
+    
+    screen.addPreference(reset);
+    
+    CallMetrics metrics = TVBrowserSharePlugin.CALL_METRICS;
+    
+    for(int call = 0; call < metrics.getCallCount(); call++) {
+      if(metrics.getCount(call) > 0) {
+        Preference info = new Preference(getActivity());
+        info.setTitle(metrics.getName(call));
+        info.setSummary(metrics.format(call));
+        info.setSelectable(false);
+        
+        screen.addPreference(info);
+      }
+    }
+  }
+}
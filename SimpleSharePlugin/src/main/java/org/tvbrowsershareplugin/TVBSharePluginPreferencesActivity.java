@@ -43,6 +43,14 @@ public class TVBSharePluginPreferencesActivity extends PreferenceActivity {
   @Override
   public void onBuildHeaders(List<Header> target) {
     loadHeadersFromResource(R.xml.preferences_header, target);
+    
+    if(BuildConfig.DEBUG) {
+      Header metrics = new Header();
+      metrics.fragment = TVBSharePluginMetricsFragment.class.getCanonicalName();
+      metrics.titleRes = R.string.pref_debug_metrics_title;
+      
+      target.add(metrics);
+    }
   }
   
   /**
@@ -53,6 +61,7 @@ public class TVBSharePluginPreferencesActivity extends PreferenceActivity {
   @TargetApi(Build.VERSION_CODES.KITKAT)
   protected boolean isValidFragment(final String fragmentName) {
     return TVBSharePluginPreferencesFragment.class.getCanonicalName().equals(fragmentName) || 
+        (BuildConfig.DEBUG && TVBSharePluginMetricsFragment.class.getCanonicalName().equals(fragmentName)) || 
         super.isValidFragment(fragmentName);
   }
 }
@@ -16,35 +16,46 @@
  */
 package org.tvbrowsershareplugin;
 
-import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.tvbrowser.devplugin.Channel;
+import org.tvbrowser.devplugin.MarkingChanges;
 import org.tvbrowser.devplugin.Plugin;
 import org.tvbrowser.devplugin.PluginManager;
 import org.tvbrowser.devplugin.PluginMenu;
 import org.tvbrowser.devplugin.Program;
+import org.tvbrowser.devplugin.ProgramTransport;
 import org.tvbrowser.devplugin.ReceiveTarget;
 
 import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
-import android.content.SharedPreferences.Editor;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
+import android.content.res.Configuration;
 import android.os.IBinder;
+import android.os.Parcel;
+import android.os.ParcelFileDescriptor;
 import android.os.RemoteException;
 import android.preference.PreferenceManager;
-import android.text.TextUtils;
 import android.text.format.DateFormat;
+import android.util.SparseArray;
 
 /**
  * A service class that provides a share functionality for TV-Browser for Android.
@@ -52,6 +63,7 @@ import android.text.format.DateFormat;
  * @author René Mach
  */
 public class TVBrowserSharePlugin extends Service {
+  /* The legacy preference key of the markings, only read once for migration to the MarkingJournal */
   public static final String PREF_MARKINGS = "PREF_MARKINGS";
   /* The id for the share PluginMenu */
   private static final int SHARE_MENU_ID = 1;
@@ -62,12 +74,212 @@ public class TVBrowserSharePlugin extends Service {
   /* The id for the remove marking PluginMenu */
   private static final int SHARE_REMOVE_MARKING_ID = 3;   
   
+  /* The flags for the index of a context menu combination */
+  private static final int MENU_ONLY_TITLE = 1;
+  private static final int MENU_REMOVE_MARKING = 2;
+  
+  /* The number of share texts prepared for context menu requests that are kept */
+  private static final int PREPARED_SHARE_TEXTS = 8;
+  
+  /* The maximum number of share texts waiting for preparation, older requests are dropped */
+  private static final int MAX_PENDING_PREPARATIONS = 4;
+  
+  /* The id for the share as list ReceiveTarget */
+  private static final int RECEIVE_TARGET_SHARE_LIST_ID = 1;
+  
+  /* The maximum number of characters of a shared program list */
+  private static final int MAX_LIST_LENGTH = 100000;
+  
+  /* The number of programs of a file transfer that are added to a list at once */
+  private static final int FILE_TRANSFER_CHUNK_SIZE = 256;
+  
+  /* The maximum number of marking changes kept for getMarkingChangesSince, older clients get a snapshot */
+  private static final int MAX_MARKING_CHANGES = 512;
+  
+  /* The maximum number of open chunked program transfers, older ones are dropped */
+  private static final int MAX_PROGRAM_TRANSFERS = 4;
+  
+  /* The names of the recorded calls, save() and the journal write followed by the Plugin methods in the order of their transaction codes */
+  private static final String[] CALL_NAMES = {
+      "save", "writeMarkings", "getVersion", "getName", "getDescription", "getAuthor", "getLicense", "getMarkIcon",
+      "getContextMenuActionsForProgram", "onProgramContextMenuSelected", "hasPreferences", "openPreferences",
+      "getMarkedPrograms", "isMarked", "handleFirstKnownProgramId", "getAvailableProgramReceiveTargets",
+      "receivePrograms", "onActivation", "onDeactivation", "isMarkedBatch", "setMarkedBatch",
+      "getMarkIconForDensity", "beginReceivePrograms", "receiveProgramsChunk", "endReceivePrograms",
+      "receiveProgramsFromFile", "getMarkingChangesSince"
+  };
+  
+  /* The call id of save(), that only queues the change, recorded in addition to the Plugin methods */
+  private static final int CALL_SAVE = 0;
+  
+  /* The call id of the journal write in the background, including a compaction */
+  private static final int CALL_WRITE_MARKINGS = 1;
+  
+  /* The call id of the first Plugin method */
+  private static final int CALL_FIRST_TRANSACTION = 2;
+  
+  /* The call ids of the methods with Program arguments */
+  private static final int CALL_GET_CONTEXT_MENU_ACTIONS = 8;
+  private static final int CALL_ON_PROGRAM_CONTEXT_MENU_SELECTED = 9;
+  private static final int CALL_RECEIVE_PROGRAMS = 16;
+  private static final int CALL_SET_MARKED_BATCH = 20;
+  private static final int CALL_RECEIVE_PROGRAMS_CHUNK = 23;
+  
+  /* The metrics of the binder calls, only collected in debug builds */
+  static final CallMetrics CALL_METRICS = BuildConfig.DEBUG ? new CallMetrics(CALL_NAMES) : null;
+  
   /* The plugin manager of TV-Browser */
-  private PluginManager mPluginManager;
+  private volatile PluginManager mPluginManager;
+  
+  /* The capabilities of TV-Browser, resolved on activation */
+  private volatile HostCapabilities mHostCapabilities = HostCapabilities.UNKNOWN;
+  
+  /* The store with the marking ids */
+  private volatile MarkingStore mMarkingProgramIds = new MarkingStore();
+  
+  /* The background writer of the marking ids */
+  private volatile MarkingPersister mMarkingPersister;
+  
+  /* Keeps the journal and the change log in the order of the changes of the marking store */
+  private final Object mMarkingLock = new Object();
+  
+  /* The ids setMarked asks TV-Browser to mark, reported as marked until they are added, changed under mMarkingLock */
+  private final MarkingStore mPendingMarkings = new MarkingStore();
+  
+  /* The changes of the marking store by generation, guarded by mMarkingLock */
+  private final MarkingChangeLog mMarkingChangeLog = new MarkingChangeLog(MAX_MARKING_CHANGES);
+  
+  /* The current share preferences, replaced on any preference change */
+  private volatile ShareSettings mShareSettings;
+  
+  /* Strong reference needed, SharedPreferences only keeps a weak reference to listeners */
+  private final OnSharedPreferenceChangeListener mPreferenceListener = new OnSharedPreferenceChangeListener() {
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+      mShareSettings = readShareSettings(sharedPreferences);
+    }
+  };
+    
+  /* The date and time formats for the share texts */
+  private final DateFormatCache mDateFormats = new DateFormatCache(new DateFormatCache.Factory() {
+    @Override
+    public java.text.DateFormat createDateFormat() {
+      return DateFormat.getLongDateFormat(TVBrowserSharePlugin.this);
+    }
+    
+    @Override
+    public java.text.DateFormat createTimeFormat() {
+      return DateFormat.getTimeFormat(TVBrowserSharePlugin.this);
+    }
+  });
+  
+  /* The share texts prepared when the context menu of a program was requested */
+  private final ShareTextCache mPreparedShareTexts = new ShareTextCache(PREPARED_SHARE_TEXTS);
+  
+  /* Prepares the share texts in the background */
+  private ThreadPoolExecutor mSharePreparer;
+  
+  /* Shares the programs in the order they were selected, if the share is done in the background */
+  private ExecutorService mShareWorker;
+  
+  /* The PNG data of the mark icon */
+  private MarkIconCache mMarkIcons;
+  
+  /* The version name, resolved on first request */
+  private volatile String mVersion;
+  
+  /* The localized plugin info, resolved on first request and reset on locale change */
+  private volatile String mName;
+  private volatile String mDescription;
+  private volatile String mLicense;
+  
+  /* The context menus for all combinations of the MENU flags, created on first request and reset on locale change */
+  private volatile PluginMenu[][] mContextMenus;
+  
+  /* Invalidates the date formats if locale, time zone or 24 hour setting changed */
+  private final BroadcastReceiver mDateFormatReceiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      mDateFormats.invalidate();
+      mPreparedShareTexts.clear();
+      
+      if(Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+        clearLocalizedInfo();
+      }
+    }
+  };
+  
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    
+    IntentFilter filter = new IntentFilter(Intent.ACTION_LOCALE_CHANGED);
+    filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+    filter.addAction(Intent.ACTION_TIME_CHANGED);
+    
+    registerReceiver(mDateFormatReceiver, filter);
+    
+    mMarkIcons = new MarkIconCache(getResources(), R.drawable.ic_action_share);
+    
+    mSharePreparer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(MAX_PENDING_PREPARATIONS), new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "SharePreparer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    }, new ThreadPoolExecutor.DiscardOldestPolicy());
+    
+    mShareWorker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "ShareWorker");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+  
+  @Override
+  public void onConfigurationChanged(Configuration newConfig) {
+    super.onConfigurationChanged(newConfig);
+    
+    mDateFormats.invalidate();
+    mPreparedShareTexts.clear();
+    clearLocalizedInfo();
+  }
+  
+  private void clearLocalizedInfo() {
+    mName = null;
+    mDescription = null;
+    mLicense = null;
+    mContextMenus = null;
+  }
   
-  /* The set with the marking ids */
-  private Set<String> mMarkingProgramIds;
+  /*
+   * Gets the context menus indexed by MENU flags, the arrays are shared and must not be changed.
+   */
+  private PluginMenu[][] getContextMenus() {
+    PluginMenu[][] menus = mContextMenus;
     
+    if(menus == null) {
+      PluginMenu share = new PluginMenu(SHARE_MENU_ID, getString(R.string.service_share_context_menu));
+      PluginMenu shareOnlyTitle = new PluginMenu(SHARE_ONLY_TITLE_MENU_ID, getString(R.string.service_share_only_title_context_menu));
+      PluginMenu removeMarking = new PluginMenu(SHARE_REMOVE_MARKING_ID, getString(R.string.service_share_context_menu_remove_marking));
+      
+      menus = new PluginMenu[][] {
+          {share},
+          {share, shareOnlyTitle},
+          {share, removeMarking},
+          {share, shareOnlyTitle, removeMarking}
+      };
+      
+      mContextMenus = menus;
+    }
+    
+    return menus;
+  }
+  
   @Override
   public IBinder onBind(Intent intent) {
     return getBinder;
@@ -77,7 +289,9 @@ public class TVBrowserSharePlugin extends Service {
   public boolean onUnbind(Intent intent) {
     /* Don't keep instance of plugin manager*/
     mPluginManager = null;
+    mHostCapabilities = HostCapabilities.UNKNOWN;
     
+    closePersister();
     stopSelf();
     
     return false;
@@ -87,36 +301,445 @@ public class TVBrowserSharePlugin extends Service {
   public void onDestroy() {
     /* Don't keep instance of plugin manager*/
     mPluginManager = null;
+    mHostCapabilities = HostCapabilities.UNKNOWN;
+    
+    closePersister();
+    PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).unregisterOnSharedPreferenceChangeListener(mPreferenceListener);
+    unregisterReceiver(mDateFormatReceiver);
+    mSharePreparer.shutdownNow();
+    mShareWorker.shutdown();
     
     super.onDestroy();
   }
   
-  private void save() {
-    Editor edit = PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).edit();
-    edit.remove(PREF_MARKINGS);
-    edit.putString(PREF_MARKINGS, TextUtils.join(";", mMarkingProgramIds));
-    edit.commit();
+  private void save(byte op, long programId) {
+    long start = BuildConfig.DEBUG ? System.nanoTime() : 0;
+    MarkingPersister persister = mMarkingPersister;
+    
+    if(persister != null) {
+      persister.enqueue(op, programId);
+    }
+    
+    if(BuildConfig.DEBUG) {
+      CALL_METRICS.record(CALL_SAVE, start);
+    }
   }
   
-  private final Plugin.Stub getBinder = new Plugin.Stub() {
-    private long mRemovingProgramId = -1;
+  private void saveAll(byte op, long[] programIds) {
+    long start = BuildConfig.DEBUG ? System.nanoTime() : 0;
+    MarkingPersister persister = mMarkingPersister;
+    
+    if(persister != null) {
+      persister.enqueueAll(op, programIds);
+    }
+    
+    if(BuildConfig.DEBUG) {
+      CALL_METRICS.record(CALL_SAVE, start);
+    }
+  }
+  
+  /*
+   * Adds the program id to the store and the journal.
+   */
+  private boolean addMarking(long programId) {
+    synchronized(mMarkingLock) {
+      if(mMarkingProgramIds.add(programId)) {
+        save(MarkingJournal.OP_ADD, programId);
+        mMarkingChangeLog.recordAdd(programId);
+        
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  /*
+   * Adds the program ids that aren't marked yet to the store, the journal
+   * and the change log, with a single change of each for all ids.
+   */
+  private void addMarkings(long[] programIds, int count) {
+    synchronized(mMarkingLock) {
+      long[] added = new long[count];
+      int addedCount = 0;
+      
+      for(int i = 0; i < count; i++) {
+        if(!mMarkingProgramIds.contains(programIds[i])) {
+          added[addedCount++] = programIds[i];
+        }
+      }
+      
+      if(addedCount > 0) {
+        /* Sorted and without duplicates, so the journal and the change log get every id once */
+        Arrays.sort(added, 0, addedCount);
+        int unique = 1;
+        
+        for(int i = 1; i < addedCount; i++) {
+          if(added[i] != added[unique - 1]) {
+            added[unique++] = added[i];
+          }
+        }
+        
+        added = Arrays.copyOf(added, unique);
+        
+        mMarkingProgramIds.addAll(added);
+        saveAll(MarkingJournal.OP_ADD, added);
+        mMarkingChangeLog.recordAddAll(added);
+      }
+    }
+  }
+  
+  /*
+   * Removes the program id from the store and the journal.
+   */
+  private boolean removeMarking(long programId) {
+    synchronized(mMarkingLock) {
+      if(mMarkingProgramIds.remove(programId)) {
+        save(MarkingJournal.OP_REMOVE, programId);
+        mMarkingChangeLog.recordRemove(programId);
+        
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  @Override
+  protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+    writer.println("Markings: " + mMarkingProgramIds.size());
+    writer.println("Marking generation: " + mMarkingChangeLog.getGeneration());
+    
+    if(BuildConfig.DEBUG) {
+      CALL_METRICS.dump(writer);
+      
+      if(args != null && Arrays.asList(args).contains("reset")) {
+        CALL_METRICS.reset();
+      }
+    }
+    else {
+      writer.println("Call metrics are only collected in debug builds.");
+    }
+  }
+  
+  private synchronized void closePersister() {
+    if(mMarkingPersister != null) {
+      mMarkingPersister.close();
+      mMarkingPersister = null;
+    }
+  }
+  
+  private ShareSettings readShareSettings(SharedPreferences pref) {
+    return new ShareSettings(
+        pref.getBoolean(getString(R.string.PREF_SHARE_MESSAGE_CONTAINS_DATE), getResources().getBoolean(R.bool.pref_share_message_contains_date_default)),
+        pref.getBoolean(getString(R.string.PREF_SHARE_MESSAGE_CONTAINS_CHANNEL), getResources().getBoolean(R.bool.pref_share_message_contains_channel_default)),
+        pref.getString(getString(R.string.PREF_SHARE_DESCRIPTION_TYPE), getString(R.string.pref_share_description_type_default)).equals("0"),
+        pref.getBoolean(getString(R.string.PREF_SHARE_ONLY_TITLE_AVAILABLE), getResources().getBoolean(R.bool.pref_share_only_title_available_default)),
+        pref.getBoolean(getString(R.string.PREF_SHARE_MARK_PROGRAMS), getResources().getBoolean(R.bool.pref_share_mark_programs_default)),
+        pref.getBoolean(getString(R.string.PREF_SHARE_IN_BACKGROUND), getResources().getBoolean(R.bool.pref_share_in_background_default)),
+        pref.getString(getString(R.string.PREF_SHARE_TARGET_ADDRESS), ""),
+        pref.getString(getString(R.string.PREF_SHARE_MESSAGE_TEMPLATE), ""));
+  }
+  
+  private void loadShareSettings() {
+    SharedPreferences pref = PreferenceManager.getDefaultSharedPreferences(getApplicationContext());
+    
+    pref.registerOnSharedPreferenceChangeListener(mPreferenceListener);
+    mShareSettings = readShareSettings(pref);
+  }
+  
+  private ShareSettings getShareSettings() {
+    ShareSettings settings = mShareSettings;
+    
+    if(settings == null) {
+      loadShareSettings();
+      settings = mShareSettings;
+    }
+    
+    return settings;
+  }
+  
+  /*
+   * The template values of a program, the date values are only formatted if a template uses them.
+   */
+  private final class ProgramValues implements ShareTemplate.Values {
+    private final Program mProgram;
+    private final boolean mShortDescription;
+    
+    private String mDate;
+    private String mStartTime;
+    private String mEndTime;
+    private String mDescription;
+    private boolean mDescriptionSelected;
+    
+    private ProgramValues(Program program, boolean shortDescription) {
+      mProgram = program;
+      mShortDescription = shortDescription;
+    }
     
     @Override
-    public String getVersion() throws RemoteException {
-      String version = "UNKONW";
-
+    public CharSequence get(int field) {
+      switch(field) {
+        case ShareTemplate.FIELD_TITLE: return mProgram.getTitle();
+        case ShareTemplate.FIELD_EPISODE: return mProgram.getEpisodeTitle();
+        case ShareTemplate.FIELD_CHANNEL: return mProgram.getChannel().getChannelName();
+        case ShareTemplate.FIELD_DATE:
+          if(mDate == null) {
+            mDate = mDateFormats.formatDate(mProgram.getStartTimeInUTC());
+          }
+          return mDate;
+        case ShareTemplate.FIELD_START:
+          if(mStartTime == null) {
+            mStartTime = mDateFormats.formatTime(mProgram.getStartTimeInUTC());
+          }
+          return mStartTime;
+        case ShareTemplate.FIELD_END:
+          if(mEndTime == null) {
+            mEndTime = mDateFormats.formatTime(mProgram.getEndTimeInUTC());
+          }
+          return mEndTime;
+        case ShareTemplate.FIELD_DESCRIPTION:
+          if(!mDescriptionSelected) {
+            mDescription = ShareFormatter.selectDescription(mProgram.getShortDescription(), mProgram.getDescription(), mShortDescription);
+            mDescriptionSelected = true;
+          }
+          return mDescription;
+        case ShareTemplate.FIELD_SHORT_DESCRIPTION: return mProgram.getShortDescription();
+        case ShareTemplate.FIELD_LONG_DESCRIPTION: return mProgram.getDescription();
+      }
+      
+      return null;
+    }
+  }
+  
+  /*
+   * Renders the share texts of the given program in the background,
+   * so they are ready if the share menu is selected.
+   */
+  private void prepareShareText(final Program program) {
+    final ShareSettings settings = getShareSettings();
+    /* Captured before formatting, a text formatted while the formats change is never used */
+    final int formatGeneration = mDateFormats.getGeneration();
+    
+    if(mPreparedShareTexts.get(program.getId(), settings, formatGeneration) == null) {
+      try {
+        mSharePreparer.execute(new Runnable() {
+          @Override
+          public void run() {
+            ProgramValues values = new ProgramValues(program, settings.isShortDescription());
+            
+            mPreparedShareTexts.put(program.getId(), settings, formatGeneration,
+                ShareFormatter.render(settings.getSubjectTemplate(), values),
+                ShareFormatter.render(settings.getMessageTemplate(), values));
+          }
+        });
+      } catch(RejectedExecutionException e) {
+        /* The service is destroyed, the texts are created when needed */
+      }
+    }
+  }
+  
+  /*
+   * Creates the share text of the given program and opens the share chooser.
+   */
+  private void shareProgram(Program program, boolean onlyTitle, ShareSettings settings) {
+    String subject = null;
+    String message = null;
+    
+    if(onlyTitle) {
+      subject = program.getTitle();
+      message = program.getTitle();
+    }
+    else {
+      ShareTextCache.Entry prepared = mPreparedShareTexts.get(program.getId(), settings, mDateFormats.getGeneration());
+      
+      if(prepared != null) {
+        subject = prepared.getSubject();
+        message = prepared.getMessage();
+      }
+      else {
+        ProgramValues values = new ProgramValues(program, settings.isShortDescription());
+        
+        subject = ShareFormatter.render(settings.getSubjectTemplate(), values);
+        message = ShareFormatter.render(settings.getMessageTemplate(), values);
+      }
+    }
+    
+    startShareChooser(settings, subject, message);
+  }
+  
+  /*
+   * Asks TV-Browser for its settings on activation, explicit events and while they are unknown.
+   * The capabilities are unknown if TV-Browser doesn't answer.
+   */
+  private HostCapabilities refreshHostCapabilities() {
+    PluginManager pluginManager = mPluginManager;
+    HostCapabilities capabilities = HostCapabilities.UNKNOWN;
+    
+    if(pluginManager != null) {
+      try {
+        capabilities = HostCapabilities.from(pluginManager.getTvBrowserSettings());
+      } catch(RemoteException e) {
+        e.printStackTrace();
+      }
+    }
+    
+    mHostCapabilities = capabilities;
+    
+    return capabilities;
+  }
+  
+  private void startShareChooser(ShareSettings settings, String subject, String message) {
+    String[] mailto = settings.getTargetAddresses();
+    
+    Intent sendIntent = new Intent();
+    sendIntent.setAction(Intent.ACTION_SEND);
+    
+    sendIntent.putExtra(Intent.EXTRA_TEXT, message);
+    sendIntent.putExtra(Intent.EXTRA_SUBJECT, subject);
+    
+    if(mailto != null) {
+      sendIntent.putExtra(Intent.EXTRA_EMAIL, mailto);
+    }
+    
+    sendIntent.setType("text/plain");
+    
+    Intent chooser = Intent.createChooser(sendIntent, getString(R.string.service_share_context_menu));
+    chooser.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+    
+    startActivity(chooser);
+  }
+  
+  private synchronized void loadMarkings() {
+    /* Write pending changes of a previous activation before reading the files */
+    closePersister();
+    
+    MarkingStore markings = new MarkingStore();
+    MarkingJournal journal = new MarkingJournal(getFilesDir());
+    
+    if(journal.exists()) {
       try {
-        PackageInfo pInfo = getPackageManager().getPackageInfo(getApplicationContext().getPackageName(), 0);
-        version = pInfo.versionName;
-      } catch (PackageManager.NameNotFoundException e) {
+        journal.load(markings);
+      } catch(IOException e) {
         e.printStackTrace();
       }
+    }
+    else {
+      SharedPreferences pref = PreferenceManager.getDefaultSharedPreferences(getApplicationContext());
+      String test = pref.getString(PREF_MARKINGS, null);
+      
+      if(test != null) {
+        String[] ids = test.split(";");
+        long[] programIds = new long[ids.length];
+        int count = 0;
+        
+        for(String id : ids) {
+          if(id.length() > 0) {
+            programIds[count++] = Long.parseLong(id);
+          }
+        }
+        
+        markings.addAll(Arrays.copyOf(programIds, count));
+        
+        try {
+          journal.compact(markings.toArray());
+          pref.edit().remove(PREF_MARKINGS).commit();
+        } catch(IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+    
+    /* Publish the loaded store only when it is complete */
+    synchronized(mMarkingLock) {
+      mMarkingProgramIds = markings;
+      mMarkingChangeLog.reset();
+    }
+    
+    mMarkingPersister = new MarkingPersister(journal, markings.toArray(), CALL_METRICS, CALL_WRITE_MARKINGS);
+  }
+  
+  private final Plugin.Stub getBinder = new Plugin.Stub() {
+    /* The ids TV-Browser is asked to unmark, read by isMarked on other binder threads */
+    private final MarkingStore mRemovingProgramIds = new MarkingStore();
+    
+    /* The open chunked program transfers by their id, guarded by itself */
+    private final SparseArray<ProgramListShare> mProgramTransfers = new SparseArray<ProgramListShare>();
+    private int mLastTransferId;
+    
+    @Override
+    public boolean onTransact(int code, Parcel data, Parcel reply, int flags) throws RemoteException {
+      long start = BuildConfig.DEBUG ? System.nanoTime() : 0;
+      int call = CALL_FIRST_TRANSACTION + code - FIRST_CALL_TRANSACTION;
+      
+      int skipped = getSkippedProgramFields(call);
+      
+      if(skipped != 0) {
+        Program.setSkippedFields(skipped);
+      }
+      
+      try {
+        return super.onTransact(code, data, reply, flags);
+      } finally {
+        if(skipped != 0) {
+          Program.setSkippedFields(0);
+        }
+        
+        if(BuildConfig.DEBUG) {
+          /* Measures every Plugin method including the unparceling of its arguments */
+          CALL_METRICS.record(call, start);
+        }
+      }
+    }
+    
+    /*
+     * Gets the fields of the Program arguments the given call doesn't use.
+     * The channel icon is never shown and the shared list needs no descriptions.
+     * The context menu needs the full program to prepare its share text.
+     */
+    private int getSkippedProgramFields(int call) {
+      switch(call) {
+        case CALL_RECEIVE_PROGRAMS:
+        case CALL_RECEIVE_PROGRAMS_CHUNK: return Program.SKIP_SHORT_DESCRIPTION | Program.SKIP_DESCRIPTION | Program.SKIP_CHANNEL_ICON;
+        case CALL_GET_CONTEXT_MENU_ACTIONS:
+        case CALL_ON_PROGRAM_CONTEXT_MENU_SELECTED:
+        case CALL_SET_MARKED_BATCH: return Program.SKIP_CHANNEL_ICON;
+      }
+      
+      return 0;
+    }
+    
+    @Override
+    public String getVersion() throws RemoteException {
+      String version = mVersion;
+      
+      if(version == null) {
+        version = "UNKONW";
+        
+        try {
+          PackageInfo pInfo = getPackageManager().getPackageInfo(getApplicationContext().getPackageName(), 0);
+          version = pInfo.versionName;
+          
+          /* An update of the package restarts the process, so the version can be kept */
+          mVersion = version;
+        } catch (PackageManager.NameNotFoundException e) {
+          e.printStackTrace();
+        }
+      }
+      
       return version;
     }
 
     @Override
     public String getDescription() throws RemoteException {
-      return getString(R.string.service_share_description);
+      String description = mDescription;
+      
+      if(description == null) {
+        description = getString(R.string.service_share_description);
+        mDescription = description;
+      }
+      
+      return description;
     }
 
     @Override
@@ -126,21 +749,86 @@ public class TVBrowserSharePlugin extends Service {
 
     @Override
     public String getLicense() throws RemoteException {
-      return getString(R.string.license);
+      String license = mLicense;
+      
+      if(license == null) {
+        license = getString(R.string.license);
+        mLicense = license;
+      }
+      
+      return license;
     }
     
     @Override
     public String getName() throws RemoteException {
-      return getString(R.string.service_share_name);
+      String name = mName;
+      
+      if(name == null) {
+        name = getString(R.string.service_share_name);
+        mName = name;
+      }
+      
+      return name;
     }
     
     @Override
     public byte[] getMarkIcon() throws RemoteException {
-      Bitmap icon = BitmapFactory.decodeResource(getResources(), R.drawable.ic_action_share);
-      ByteArrayOutputStream stream = new ByteArrayOutputStream();
-      icon.compress(Bitmap.CompressFormat.PNG, 100, stream);
+      return mMarkIcons.getIcon();
+    }
+    
+    @Override
+    public byte[] getMarkIconForDensity(int density) throws RemoteException {
+      return mMarkIcons.getIcon(density);
+    }
+    
+    private boolean isIconMarkingSupported() {
+      HostCapabilities capabilities = mHostCapabilities;
+      
+      /* Ask again if TV-Browser didn't answer on activation, the non icon marking can't undo icon markings */
+      if(capabilities == HostCapabilities.UNKNOWN && mPluginManager != null) {
+        capabilities = refreshHostCapabilities();
+      }
+      
+      return capabilities.isIconMarkingSupported();
+    }
+    
+    /*
+     * TV-Browser marks by program id, so the program may have been read
+     * without descriptions and channel icon, see getSkippedProgramFields.
+     */
+    private boolean markInHost(Program program, boolean withIcon) throws RemoteException {
+      if(withIcon) {
+        return mPluginManager.markProgramWithIcon(program, TVBrowserSharePlugin.class.getCanonicalName());
+      }
       
-      return stream.toByteArray();
+      return mPluginManager.markProgram(program);
+    }
+    
+    private boolean unmarkInHost(Program program, boolean withIcon) throws RemoteException {
+      if(withIcon) {
+        return mPluginManager.unmarkProgramWithIcon(program, TVBrowserSharePlugin.class.getCanonicalName());
+      }
+      
+      return mPluginManager.unmarkProgram(program);
+    }
+    
+    /*
+     * Unmarks the program in TV-Browser and removes its marking, isMarked
+     * already reports it as unmarked while TV-Browser is asked.
+     */
+    private boolean unmark(Program program, boolean withIcon) throws RemoteException {
+      long programId = program.getId();
+      
+      /* Only the first of concurrent unmarkings of the same id ends the removal */
+      boolean removing = mRemovingProgramIds.add(programId);
+      
+      try {
+        return unmarkInHost(program, withIcon) && removeMarking(programId);
+      } finally {
+        if(removing) {
+          mRemovingProgramIds.remove(programId);
+        }
+      }
     }
     
     @Override
@@ -148,130 +836,37 @@ public class TVBrowserSharePlugin extends Service {
       boolean result = false;
       
       if(pluginMenu.getId() == SHARE_REMOVE_MARKING_ID) {
-        if(mMarkingProgramIds.contains(String.valueOf(program.getId()))) {
-          mRemovingProgramId = program.getId();
-          
-          boolean unmarked = false;
-          
-          if(mPluginManager.getTvBrowserSettings().getTvbVersionCode() >= 308) {
-            unmarked = mPluginManager.unmarkProgramWithIcon(program, TVBrowserSharePlugin.class.getCanonicalName());
-          }
-          else {
-            unmarked = mPluginManager.unmarkProgram(program);
-          }
-          
-          if(unmarked) {
-            mMarkingProgramIds.remove(String.valueOf(program.getId()));
-            save();
-          }
-          
-          mRemovingProgramId = -1;
+        if(mMarkingProgramIds.contains(program.getId())) {
+          unmark(program, isIconMarkingSupported());
         }
       }
       else {
-        StringBuilder message = new StringBuilder();
-        StringBuilder subject = new StringBuilder();
-        
-        String startDate = DateFormat.getLongDateFormat(TVBrowserSharePlugin.this).format(new Date(program.getStartTimeInUTC()));
-        String startTime = DateFormat.getTimeFormat(TVBrowserSharePlugin.this).format(new Date(program.getStartTimeInUTC()));
-        String endTime = DateFormat.getTimeFormat(TVBrowserSharePlugin.this).format(new Date(program.getEndTimeInUTC()));
-        
-        subject.append(startDate).append(", ").append(startTime).append(" - ").append(endTime).append(" ").append(program.getChannel().getChannelName()).append(": ");
-        subject.append(program.getTitle());
-        
-        SharedPreferences pref = PreferenceManager.getDefaultSharedPreferences(TVBrowserSharePlugin.this);
+        final Program shared = program;
+        final boolean onlyTitle = pluginMenu.getId() == SHARE_ONLY_TITLE_MENU_ID;
+        final ShareSettings settings = getShareSettings();
         
-        if(pref.getBoolean(getString(R.string.PREF_SHARE_MESSAGE_CONTAINS_DATE), getResources().getBoolean(R.bool.pref_share_message_contains_date_default))) {
-          message.append(startDate).append(", ").append(startTime).append(" - ").append(endTime);
-        }
-  
-        if(pref.getBoolean(getString(R.string.PREF_SHARE_MESSAGE_CONTAINS_CHANNEL), getResources().getBoolean(R.bool.pref_share_message_contains_channel_default))) {
-          if(message.toString().trim().length() > 0) {
-            message.append(" ");
-          }
-          
-          message.append(program.getChannel().getChannelName()).append(": ");
-        }
+        // mark the program if user has setup marking
+        result = settings.isMarkPrograms();
         
-        if(message.toString().trim().length() > 0) {
-          message.append("\n\n");
+        /* Record the marking before returning, so an unmarking selected right after the share finds it */
+        if(result) {
+          addMarking(program.getId());
         }
         
-        message.append(program.getTitle());
-        
-        String desc = null;
-        
-        if(pref.getString(getString(R.string.PREF_SHARE_DESCRIPTION_TYPE), getString(R.string.pref_share_description_type_default)).equals("0")) {
-          desc = program.getShortDescription();
-          
-          if(desc == null || desc.trim().length() == 0) {
-            desc = program.getDescription();
-          }
-          
-          if(desc != null && desc.length() > 160) {
-            desc = desc.substring(0,160) +"\u2026";
+        if(settings.isShareInBackground()) {
+          try {
+            mShareWorker.execute(new Runnable() {
+              @Override
+              public void run() {
+                shareProgram(shared, onlyTitle, settings);
+              }
+            });
+          } catch(RejectedExecutionException e) {
+            shareProgram(program, onlyTitle, settings);
           }
         }
         else {
-          desc = program.getDescription();
-          
-          if(desc == null) {
-            desc = program.getShortDescription();
-          }
-        }
-        
-        if(program.getEpisodeTitle() != null) {
-          subject.append(" - ").append(program.getEpisodeTitle());
-          message.append(" - ").append(program.getEpisodeTitle());
-        }
-        
-        if(desc != null) {
-          message.append("\n\n").append(desc);
-        }
-        
-        String[] mailto = null;
-        
-        String mailAddresses = pref.getString(getString(R.string.PREF_SHARE_TARGET_ADDRESS), "").trim();
-        
-        if(mailAddresses.contains(",")) {
-          mailto = mailAddresses.split("\\s+,\\s+");
-        }
-        else if(mailAddresses.trim().length() > 0) {
-          mailto = new String[1];
-          mailto[0] = mailAddresses;
-        }
-        
-        Intent sendIntent = new Intent();
-        sendIntent.setAction(Intent.ACTION_SEND);
-        
-        if(pluginMenu.getId() == SHARE_ONLY_TITLE_MENU_ID) {
-          subject.delete(0, subject.length());
-          subject.append(program.getTitle());
-          
-          message.delete(0, message.length());
-          message.append(program.getTitle());
-        }
-        
-        sendIntent.putExtra(Intent.EXTRA_TEXT, message.toString());
-        sendIntent.putExtra(Intent.EXTRA_SUBJECT, subject.toString());
-        
-        if(mailto != null) {
-          sendIntent.putExtra(Intent.EXTRA_EMAIL, mailto);
-        }
-        
-        sendIntent.setType("text/plain");
-        
-        Intent chooser = Intent.createChooser(sendIntent, getString(R.string.service_share_context_menu));
-        chooser.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-        
-        startActivity(chooser);
-        
-        // mark the program if user has setup marking
-        result = PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).getBoolean(getString(R.string.PREF_SHARE_MARK_PROGRAMS), getResources().getBoolean(R.bool.pref_share_mark_programs_default));
-        
-        if(result && !mMarkingProgramIds.contains(String.valueOf(program.getId()))) {
-          mMarkingProgramIds.add(String.valueOf(program.getId()));
-          save();
+          shareProgram(program, onlyTitle, settings);
         }
       }
       
@@ -280,19 +875,19 @@ public class TVBrowserSharePlugin extends Service {
     
     @Override
     public PluginMenu[] getContextMenuActionsForProgram(Program program) throws RemoteException {
-      ArrayList<PluginMenu> menuList = new ArrayList<PluginMenu>();
-      
-      menuList.add(new PluginMenu(SHARE_MENU_ID, getString(R.string.service_share_context_menu)));
+      int menu = 0;
       
-      if(PreferenceManager.getDefaultSharedPreferences(TVBrowserSharePlugin.this).getBoolean(getString(R.string.PREF_SHARE_ONLY_TITLE_AVAILABLE), getResources().getBoolean(R.bool.pref_share_only_title_available_default))) {
-        menuList.add(new PluginMenu(SHARE_ONLY_TITLE_MENU_ID, getString(R.string.service_share_only_title_context_menu)));
+      if(getShareSettings().isOnlyTitleAvailable()) {
+        menu |= MENU_ONLY_TITLE;
       }
       
-      if(mMarkingProgramIds.contains(String.valueOf(program.getId()))) {
-        menuList.add(new PluginMenu(SHARE_REMOVE_MARKING_ID, getString(R.string.service_share_context_menu_remove_marking)));
+      if(mMarkingProgramIds.contains(program.getId())) {
+        menu |= MENU_REMOVE_MARKING;
       }
       
-      return menuList.toArray(new PluginMenu[menuList.size()]);
+      prepareShareText(program);
+      
+      return getContextMenus()[menu];
     }
 
     @Override
@@ -306,7 +901,8 @@ public class TVBrowserSharePlugin extends Service {
       startPref.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
       
       if(mPluginManager != null) {
-        startPref.putExtra(TVBSharePluginPreferencesActivity.DARK_THEME_EXTRA_KEY, mPluginManager.getTvBrowserSettings().isUsingDarkTheme());
+        /* The user may have changed the theme since the activation */
+        startPref.putExtra(TVBSharePluginPreferencesActivity.DARK_THEME_EXTRA_KEY, refreshHostCapabilities().isUsingDarkTheme());
       }
       
       startActivity(startPref);
@@ -314,28 +910,27 @@ public class TVBrowserSharePlugin extends Service {
 
     @Override
     public long[] getMarkedPrograms() throws RemoteException {
-      long[] markings = new long[mMarkingProgramIds.size()];
-      
-      Iterator<String> values = mMarkingProgramIds.iterator();
-      
-      for(int i = 0; i < markings.length; i++) {
-        markings[i] = Long.parseLong(values.next());
-      }
-      
-      return markings;
+      return mMarkingProgramIds.toArray();
     }
 
     @Override
     public void handleFirstKnownProgramId(long programId) throws RemoteException {
+      mHostCapabilities = mHostCapabilities.withFirstKnownProgramId(programId);
+      
       if(programId == -1) {
-        mMarkingProgramIds.clear();
+        synchronized(mMarkingLock) {
+          if(mMarkingProgramIds.size() > 0) {
+            mMarkingProgramIds.clear();
+            save(MarkingJournal.OP_CLEAR, programId);
+            mMarkingChangeLog.reset();
+          }
+        }
       }
       else {
-        String[] knownIds = mMarkingProgramIds.toArray(new String[mMarkingProgramIds.size()]);
-        
-        for(int i = knownIds.length-1; i >= 0; i--) {
-          if(Long.parseLong(knownIds[i]) < programId) {
-            mMarkingProgramIds.remove(knownIds[i]);
+        synchronized(mMarkingLock) {
+          if(mMarkingProgramIds.removeBelow(programId) > 0) {
+            save(MarkingJournal.OP_REMOVE_BELOW, programId);
+            mMarkingChangeLog.recordRemoveBelow(programId);
           }
         }
       }
@@ -345,31 +940,302 @@ public class TVBrowserSharePlugin extends Service {
     public void onActivation(PluginManager pluginManager) throws RemoteException {
       mPluginManager = pluginManager;
       
-      mMarkingProgramIds = new HashSet<String>();
-      String test = PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).getString(PREF_MARKINGS, null);
-      
-      if(test != null) {
-        mMarkingProgramIds.addAll(Arrays.asList(((String)test).split(";")));
-      }
+      /* Load the local state first, it must not depend on TV-Browser answering */
+      loadShareSettings();
+      loadMarkings();
+      refreshHostCapabilities();
     }
 
     @Override
     public void onDeactivation() throws RemoteException {
       /* Don't keep instance of plugin manager*/
       mPluginManager = null;
+      mHostCapabilities = HostCapabilities.UNKNOWN;
+      
+      closePersister();
+      PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).unregisterOnSharedPreferenceChangeListener(mPreferenceListener);
+      
+      synchronized(mProgramTransfers) {
+        mProgramTransfers.clear();
+      }
     }
 
     @Override
     public boolean isMarked(long programId) throws RemoteException {
-      return programId != mRemovingProgramId && mMarkingProgramIds.contains(String.valueOf(programId));
+      return !mRemovingProgramIds.contains(programId) && (mMarkingProgramIds.contains(programId) || mPendingMarkings.contains(programId));
     }
 
+    @Override
+    public MarkingChanges getMarkingChangesSince(long epoch, long generation) throws RemoteException {
+      MarkingChangeLog.Changes changes;
+      
+      synchronized(mMarkingLock) {
+        changes = mMarkingChangeLog.getChangesSince(epoch, generation, mMarkingProgramIds);
+      }
+      
+      return new MarkingChanges(changes.getEpoch(), changes.getGeneration(), changes.isSnapshot(), changes.getRemovedBelow(), changes.getAdded(), changes.getRemoved());
+    }
+    
+    @Override
+    public boolean[] isMarkedBatch(long[] programIds) throws RemoteException {
+      boolean[] marked = new boolean[programIds.length];
+      for(int i = 0; i < programIds.length; i++) {
+        marked[i] = !mRemovingProgramIds.contains(programIds[i]) && (mMarkingProgramIds.contains(programIds[i]) || mPendingMarkings.contains(programIds[i]));
+      }
+      
+      return marked;
+    }
+    
+    @Override
+    public boolean[] setMarkedBatch(Program[] programs, boolean marked) throws RemoteException {
+      return setMarked(programs, marked);
+    }
+    
+    /*
+     * Marks the programs that aren't marked yet in TV-Browser and adds the ids
+     * TV-Browser marked with a single change of the store, journal and change log.
+     * isMarked already reports the ids as marked while TV-Browser is asked.
+     */
+    private void mark(Program[] programs, boolean withIcon, boolean[] changed) throws RemoteException {
+      boolean[] asked = new boolean[programs.length];
+      long[] pending = new long[programs.length];
+      int pendingCount = 0;
+      
+      synchronized(mMarkingLock) {
+        for(int i = 0; i < programs.length; i++) {
+          long programId = programs[i].getId();
+          
+          /* Ids another setMarked is asking TV-Browser for are left to it */
+          if(!mMarkingProgramIds.contains(programId) && !mPendingMarkings.contains(programId)) {
+            asked[i] = true;
+            pending[pendingCount++] = programId;
+          }
+        }
+        
+        pending = Arrays.copyOf(pending, pendingCount);
+        mPendingMarkings.addAll(pending);
+      }
+      
+      long[] markedIds = new long[pendingCount];
+      int markedCount = 0;
+      
+      try {
+        for(int i = 0; i < programs.length; i++) {
+          if(asked[i]) {
+            changed[i] = markInHost(programs[i], withIcon);
+            
+            if(changed[i]) {
+              markedIds[markedCount++] = programs[i].getId();
+            }
+          }
+        }
+      } finally {
+        synchronized(mMarkingLock) {
+          addMarkings(markedIds, markedCount);
+          mPendingMarkings.removeAll(pending);
+        }
+      }
+    }
+    
+    private boolean[] setMarked(Program[] programs, boolean marked) throws RemoteException {
+      boolean[] changed = new boolean[programs.length];
+      
+      if(mPluginManager != null) {
+        boolean withIcon = isIconMarkingSupported();
+        
+        if(marked) {
+          mark(programs, withIcon, changed);
+        }
+        else {
+          for(int i = 0; i < programs.length; i++) {
+            if(mMarkingProgramIds.contains(programs[i].getId())) {
+              changed[i] = unmark(programs[i], withIcon);
+            }
+          }
+        }
+      }
+      
+      return changed;
+    }
+    
     @Override
     public ReceiveTarget[] getAvailableProgramReceiveTargets() throws RemoteException {
-      return null;
+      return new ReceiveTarget[] {
+          new ReceiveTarget(TVBrowserSharePlugin.this, getString(R.string.service_share_receive_target_list), RECEIVE_TARGET_SHARE_LIST_ID)
+      };
     }
 
     @Override
-    public void receivePrograms(Program[] programs, ReceiveTarget target) throws RemoteException {}
+    public void receivePrograms(Program[] programs, ReceiveTarget target) throws RemoteException {
+      if(programs != null && programs.length > 0 && target != null && target.isReceiveTargetOfServiceWithId(TVBrowserSharePlugin.this, RECEIVE_TARGET_SHARE_LIST_ID)) {
+        shareProgramList(programs);
+      }
+    }
+    
+    @Override
+    public int beginReceivePrograms(ReceiveTarget target, int programCount) throws RemoteException {
+      if(target == null || !target.isReceiveTargetOfServiceWithId(TVBrowserSharePlugin.this, RECEIVE_TARGET_SHARE_LIST_ID)) {
+        return 0;
+      }
+      
+      synchronized(mProgramTransfers) {
+        if(mProgramTransfers.size() >= MAX_PROGRAM_TRANSFERS) {
+          /* Ids are increasing, so the first one is the oldest transfer */
+          mProgramTransfers.removeAt(0);
+        }
+        
+        if(++mLastTransferId <= 0) {
+          mLastTransferId = 1;
+        }
+        
+        mProgramTransfers.put(mLastTransferId, new ProgramListShare(programCount));
+        
+        return mLastTransferId;
+      }
+    }
+    
+    @Override
+    public boolean receiveProgramsChunk(int transferId, Program[] programs) throws RemoteException {
+      ProgramListShare share;
+      
+      synchronized(mProgramTransfers) {
+        share = mProgramTransfers.get(transferId);
+      }
+      
+      if(share == null) {
+        return false;
+      }
+      
+      if(programs != null) {
+        share.add(programs);
+      }
+      
+      return true;
+    }
+    
+    @Override
+    public void endReceivePrograms(int transferId) throws RemoteException {
+      ProgramListShare share;
+      
+      synchronized(mProgramTransfers) {
+        share = mProgramTransfers.get(transferId);
+        mProgramTransfers.remove(transferId);
+      }
+      
+      if(share != null) {
+        share.finish();
+      }
+    }
+    
+    @Override
+    public boolean receiveProgramsFromFile(ParcelFileDescriptor programData, ReceiveTarget target) throws RemoteException {
+      if(programData == null) {
+        return false;
+      }
+      
+      if(target == null || !target.isReceiveTargetOfServiceWithId(TVBrowserSharePlugin.this, RECEIVE_TARGET_SHARE_LIST_ID)) {
+        try {
+          programData.close();
+        } catch(IOException e) {
+          e.printStackTrace();
+        }
+        
+        return false;
+      }
+      
+      final ProgramListShare share = new ProgramListShare(0);
+      
+      try {
+        ProgramTransport.read(programData, FILE_TRANSFER_CHUNK_SIZE, new ProgramTransport.Receiver() {
+          @Override
+          public void onPrograms(Program[] programs) {
+            share.add(programs);
+          }
+        });
+      } catch(IOException e) {
+        e.printStackTrace();
+        return false;
+      }
+      
+      share.finish();
+      
+      return true;
+    }
+    
+    /*
+     * Shares the given programs with one chooser as a list grouped by date.
+     */
+    private void shareProgramList(Program[] programs) throws RemoteException {
+      ProgramListShare share = new ProgramListShare(programs.length);
+      share.add(programs);
+      share.finish();
+    }
+    
+    /*
+     * A program list that is shared with one chooser, grouped by date.
+     * Programs can be added in several chunks, the list is cut off after
+     * MAX_LIST_LENGTH characters and only the programs that made it into
+     * the list are kept for marking, so the memory is bounded for any
+     * number of added programs.
+     */
+    private final class ProgramListShare {
+      private final StringBuilder mMessage;
+      private final ArrayList<Program> mSharedPrograms;
+      private String mLastDate;
+      private int mOmittedCount;
+      
+      private ProgramListShare(int programCount) {
+        mMessage = new StringBuilder(Math.min(MAX_LIST_LENGTH, Math.max(16, programCount) * 80));
+        mSharedPrograms = new ArrayList<Program>(Math.min(Math.max(16, programCount), 1024));
+      }
+      
+      private synchronized void add(Program[] programs) {
+        for(Program program : programs) {
+          if(mMessage.length() >= MAX_LIST_LENGTH) {
+            mOmittedCount++;
+            continue;
+          }
+          
+          String startDate = mDateFormats.formatDate(program.getStartTimeInUTC());
+          
+          if(!startDate.equals(mLastDate)) {
+            if(mLastDate != null) {
+              mMessage.append("\n");
+            }
+            
+            mMessage.append(startDate).append("\n");
+            mLastDate = startDate;
+          }
+          
+          mMessage.append(mDateFormats.formatTime(program.getStartTimeInUTC())).append(" - ");
+          mMessage.append(mDateFormats.formatTime(program.getEndTimeInUTC())).append(" ").append(program.getChannel().getChannelName()).append(": ").append(program.getTitle());
+          
+          if(program.getEpisodeTitle() != null) {
+            mMessage.append(" - ").append(program.getEpisodeTitle());
+          }
+          
+          mMessage.append("\n");
+          mSharedPrograms.add(program);
+        }
+      }
+      
+      private synchronized void finish() throws RemoteException {
+        if(mSharedPrograms.isEmpty()) {
+          return;
+        }
+        
+        if(mOmittedCount > 0) {
+          mMessage.append("\n").append(getString(R.string.service_share_list_more, mOmittedCount));
+        }
+        
+        ShareSettings settings = getShareSettings();
+        
+        startShareChooser(settings, getString(R.string.service_share_list_subject, mSharedPrograms.size()), mMessage.toString());
+        
+        if(settings.isMarkPrograms()) {
+          setMarked(mSharedPrograms.toArray(new Program[mSharedPrograms.size()]), true);
+        }
+      }
+    }
   };
 }
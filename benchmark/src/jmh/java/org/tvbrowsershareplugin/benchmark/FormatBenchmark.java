@@ -0,0 +1,115 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin.benchmark;
+
+import java.text.DateFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tvbrowsershareplugin.DateFormatCache;
+import org.tvbrowsershareplugin.ShareFormatter;
+import org.tvbrowsershareplugin.ShareSettings;
+import org.tvbrowsershareplugin.ShareTemplate;
+
+/**
+ * Benchmarks creating the subject and message of a shared program.
+ * <p>
+ * The formats of java.text replace the Android DateFormat and a
+ * plain implementation of {@link ShareTemplate.Values} replaces
+ * the one reading from a Program.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormatBenchmark {
+  private static final String DESCRIPTION = "Ein Kommissar ermittelt in einem Mordfall, der ihn in seine eigene Vergangenheit führt. "
+      + "Dabei stößt er auf alte Bekannte und muss sich entscheiden, wem er noch vertrauen kann, bevor es zu spät ist.";
+  
+  @Param({"true", "false"})
+  public boolean messageContainsDate;
+  
+  private ShareSettings mSettings;
+  private DateFormatCache mDateFormats;
+  private ShareTemplate.Values mValues;
+  
+  @Setup
+  public void setUp() {
+    mSettings = new ShareSettings(messageContainsDate, true, true, true, true, true, "", "");
+    mDateFormats = new DateFormatCache(new DateFormatCache.Factory() {
+      @Override
+      public DateFormat createDateFormat() {
+        return DateFormat.getDateInstance(DateFormat.LONG);
+      }
+      
+      @Override
+      public DateFormat createTimeFormat() {
+        return DateFormat.getTimeInstance(DateFormat.SHORT);
+      }
+    });
+    
+    final long startTime = 1400000000000L;
+    final long endTime = startTime + 90 * 60000L;
+    
+    mValues = new ShareTemplate.Values() {
+      @Override
+      public CharSequence get(int field) {
+        switch(field) {
+          case ShareTemplate.FIELD_TITLE: return "Tatort";
+          case ShareTemplate.FIELD_EPISODE: return "Die letzte Spur";
+          case ShareTemplate.FIELD_CHANNEL: return "Das Erste";
+          case ShareTemplate.FIELD_DATE: return mDateFormats.formatDate(startTime);
+          case ShareTemplate.FIELD_START: return mDateFormats.formatTime(startTime);
+          case ShareTemplate.FIELD_END: return mDateFormats.formatTime(endTime);
+          case ShareTemplate.FIELD_DESCRIPTION:
+          case ShareTemplate.FIELD_SHORT_DESCRIPTION:
+          case ShareTemplate.FIELD_LONG_DESCRIPTION: return DESCRIPTION;
+        }
+        
+        return null;
+      }
+    };
+  }
+  
+  @Benchmark
+  public String subject() {
+    return ShareFormatter.render(mSettings.getSubjectTemplate(), mValues);
+  }
+  
+  @Benchmark
+  public String message() {
+    return ShareFormatter.render(mSettings.getMessageTemplate(), mValues);
+  }
+  
+  @Benchmark
+  public String selectDescription() {
+    return ShareFormatter.selectDescription(DESCRIPTION, null, true);
+  }
+  
+  @Benchmark
+  public ShareTemplate compileTemplate() {
+    return ShareTemplate.compile(ShareSettings.createDefaultMessageTemplate(messageContainsDate, true));
+  }
+}
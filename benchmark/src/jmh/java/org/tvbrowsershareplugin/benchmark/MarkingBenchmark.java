@@ -0,0 +1,111 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tvbrowsershareplugin.MarkingStore;
+
+/**
+ * Benchmarks the marking calls TV-Browser makes for every shown program
+ * and on every data update: isMarked, getMarkedPrograms and
+ * handleFirstKnownProgramId.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MarkingBenchmark {
+  /* Number of prepared lookup ids, a power of two for cheap masking */
+  private static final int LOOKUPS = 1024;
+  
+  @Param({"10", "1000", "100000", "1000000"})
+  public int markings;
+  
+  private long[] mProgramIds;
+  private MarkingStore mStore;
+  private long[] mLookups;
+  private int mLookup;
+  
+  @Setup(Level.Trial)
+  public void setUp() {
+    mProgramIds = MarkingData.createProgramIds(markings);
+    mStore = new MarkingStore();
+    mStore.addAll(mProgramIds);
+    
+    /* Half of the lookups hit a marked program */
+    Random random = new Random(42);
+    mLookups = new long[LOOKUPS];
+    
+    for(int i = 0; i < mLookups.length; i++) {
+      long programId = mProgramIds[random.nextInt(mProgramIds.length)];
+      mLookups[i] = (i & 1) == 0 ? programId : programId + 1;
+    }
+  }
+  
+  /**
+   * The store for the expiry benchmark, it is recreated for every
+   * invocation, so it is kept apart from the other benchmarks.
+   */
+  @State(Scope.Thread)
+  public static class ExpiryState {
+    private MarkingStore mStore;
+    
+    @Setup(Level.Invocation)
+    public void setUp(MarkingBenchmark benchmark) {
+      mStore = new MarkingStore();
+      mStore.addAll(benchmark.mProgramIds);
+    }
+  }
+  
+  @Benchmark
+  public boolean isMarked() {
+    return mStore.contains(mLookups[mLookup++ & (LOOKUPS - 1)]);
+  }
+  
+  @Benchmark
+  public long[] getMarkedPrograms() {
+    return mStore.toArray();
+  }
+  
+  @Benchmark
+  public long[] getMarkedProgramsAfterChange() {
+    long programId = mLookups[mLookup++ & (LOOKUPS - 1)] | 1;
+    
+    mStore.add(programId);
+    mStore.remove(programId);
+    
+    return mStore.toArray();
+  }
+  
+  @Benchmark
+  public int handleFirstKnownProgramId(ExpiryState expiry) {
+    /* Expire the older half of the markings */
+    return expiry.mStore.removeBelow(mProgramIds[mProgramIds.length / 2]);
+  }
+}
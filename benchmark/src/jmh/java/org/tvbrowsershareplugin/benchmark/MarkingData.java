@@ -0,0 +1,45 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin.benchmark;
+
+/**
+ * Creates program ids like the ones TV-Browser uses for the benchmarks.
+ *
+ * @author agent
+ */
+final class MarkingData {
+  private MarkingData() {}
+  
+  /**
+   * Creates the given number of sorted, even program ids with gaps,
+   * so an odd id is never contained.
+   * <p>
+   * @param count The number of ids to create.
+   * @return The created ids in ascending order.
+   */
+  static long[] createProgramIds(int count) {
+    long[] programIds = new long[count];
+    long programId = 1000000;
+    
+    for(int i = 0; i < count; i++) {
+      programId += 2 * (1 + (i % 7));
+      programIds[i] = programId;
+    }
+    
+    return programIds;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tvbrowser.devplugin.ProgramCodec;
+
+/**
+ * Benchmarks the program batch format of the file transport against
+ * the layout of the Parcel format 1 of Program and Channel, which is
+ * emulated with a ByteBuffer: type tags, UTF-16 Strings padded to 4 bytes
+ * and the channel icon for every program.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProgramCodecBenchmark {
+  private static final int CHANNEL_COUNT = 30;
+  private static final int ICON_SIZE = 2048;
+  
+  @Param({"500", "5000"})
+  public int programs;
+  
+  private String[] mTitles;
+  private String[] mDescriptions;
+  private String[] mChannelNames;
+  private byte[] mIcon;
+  
+  private ByteBuffer mEncoded;
+  private ByteBuffer mParcel;
+  
+  private long mChecksum;
+  
+  private final ProgramCodec.Receiver mReceiver = new ProgramCodec.Receiver() {
+    @Override
+    public void onProgram(long id, long startTime, long endTime, String title, String shortDescription, String description, String episodeTitle, int channelId, String channelName) {
+      mChecksum += id + title.length();
+    }
+  };
+  
+  @Setup
+  public void setUp() {
+    mTitles = new String[programs];
+    mDescriptions = new String[programs];
+    mChannelNames = new String[CHANNEL_COUNT];
+    mIcon = new byte[ICON_SIZE];
+    
+    for(int i = 0; i < programs; i++) {
+      mTitles[i] = "Sendung Nummer " + i;
+      mDescriptions[i] = "Eine Beschreibung der Sendung " + i + ", die ungefähr so lang ist wie eine übliche Kurzbeschreibung im Programm.";
+    }
+    
+    for(int i = 0; i < CHANNEL_COUNT; i++) {
+      mChannelNames[i] = "Sender " + i;
+    }
+    
+    mEncoded = encode();
+    mParcel = ByteBuffer.allocate(programs * (ICON_SIZE + 512));
+    writeParcel(mParcel);
+  }
+  
+  @Benchmark
+  public ByteBuffer encode() {
+    ProgramCodec.Writer writer = new ProgramCodec.Writer(programs);
+    
+    for(int i = 0; i < programs; i++) {
+      writer.add(i, i * 60000L, (i + 1) * 60000L, mTitles[i], mDescriptions[i], null, null, i % CHANNEL_COUNT, mChannelNames[i % CHANNEL_COUNT]);
+    }
+    
+    return writer.finish();
+  }
+  
+  @Benchmark
+  public long decode() throws IOException {
+    mChecksum = 0;
+    ProgramCodec.read(mEncoded.duplicate(), mReceiver);
+    
+    return mChecksum;
+  }
+  
+  @Benchmark
+  public ByteBuffer writeParcelEquivalent() {
+    mParcel.clear();
+    writeParcel(mParcel);
+    
+    return mParcel;
+  }
+  
+  @Benchmark
+  public long readParcelEquivalent() {
+    ByteBuffer parcel = mParcel.duplicate();
+    parcel.flip();
+    long checksum = 0;
+    
+    for(int i = 0; i < programs; i++) {
+      parcel.getInt();
+      long id = parcel.getLong();
+      parcel.getLong();
+      parcel.getLong();
+      String title = readString(parcel);
+      readValue(parcel);
+      readValue(parcel);
+      readValue(parcel);
+      
+      parcel.getInt();
+      parcel.getInt();
+      readString(parcel);
+      
+      if(parcel.getInt() > 0) {
+        byte[] icon = new byte[parcel.getInt()];
+        parcel.get(icon);
+        parcel.position((parcel.position() + 3) & ~3);
+      }
+      
+      checksum += id + title.length();
+    }
+    
+    return checksum;
+  }
+  
+  private void writeParcel(ByteBuffer parcel) {
+    for(int i = 0; i < programs; i++) {
+      parcel.putInt(1);
+      parcel.putLong(i).putLong(i * 60000L).putLong((i + 1) * 60000L);
+      writeString(parcel, mTitles[i]);
+      writeValue(parcel, mDescriptions[i]);
+      writeValue(parcel, null);
+      writeValue(parcel, null);
+      
+      parcel.putInt(1);
+      parcel.putInt(i % CHANNEL_COUNT);
+      writeString(parcel, mChannelNames[i % CHANNEL_COUNT]);
+      parcel.putInt(mIcon.length);
+      parcel.putInt(mIcon.length);
+      parcel.put(mIcon);
+      parcel.position((parcel.position() + 3) & ~3);
+    }
+  }
+  
+  private static void writeValue(ByteBuffer parcel, String value) {
+    parcel.putInt(value != null ? 0 : -1);
+    
+    if(value != null) {
+      writeString(parcel, value);
+    }
+  }
+  
+  private static void writeString(ByteBuffer parcel, String value) {
+    parcel.putInt(value.length());
+    
+    for(int i = 0; i < value.length(); i++) {
+      parcel.putChar(value.charAt(i));
+    }
+    
+    parcel.putChar((char)0);
+    parcel.position((parcel.position() + 3) & ~3);
+  }
+  
+  private static String readValue(ByteBuffer parcel) {
+    return parcel.getInt() == -1 ? null : readString(parcel);
+  }
+  
+  private static String readString(ByteBuffer parcel) {
+    char[] value = new char[parcel.getInt()];
+    
+    for(int i = 0; i < value.length; i++) {
+      value[i] = parcel.getChar();
+    }
+    
+    parcel.getChar();
+    parcel.position((parcel.position() + 3) & ~3);
+    
+    return new String(value);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * TVBrowserSharePlugin for TV-Browser for Android
+ * Copyright (C) 2026 agent (agent@local)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to use, copy, modify or merge the Software,
+ * furthermore to publish and distribute the Software free of charge without modifications and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.tvbrowsershareplugin.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.tvbrowsershareplugin.MarkingJournal;
+import org.tvbrowsershareplugin.MarkingStore;
+
+/**
+ * Benchmarks writing and reading the persisted markings.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+  /* Number of records written by one journal append */
+  private static final int BATCH = 64;
+  
+  @Param({"10", "1000", "100000", "1000000"})
+  public int markings;
+  
+  private File mDirectory;
+  private MarkingJournal mJournal;
+  private long[] mProgramIds;
+  
+  private byte[] mBatchOps;
+  private long[] mBatchIds;
+  
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    mDirectory = File.createTempFile("markings", "");
+    mDirectory.delete();
+    mDirectory.mkdir();
+    
+    mJournal = new MarkingJournal(mDirectory);
+    mProgramIds = MarkingData.createProgramIds(markings);
+    mJournal.compact(mProgramIds);
+    
+    mBatchOps = new byte[BATCH];
+    mBatchIds = new long[BATCH];
+    
+    for(int i = 0; i < BATCH; i++) {
+      mBatchOps[i] = (i & 1) == 0 ? MarkingJournal.OP_ADD : MarkingJournal.OP_REMOVE;
+      mBatchIds[i] = mProgramIds[mProgramIds.length - 1] + 2 * (i / 2 + 1);
+    }
+  }
+  
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for(File file : mDirectory.listFiles()) {
+      file.delete();
+    }
+    
+    mDirectory.delete();
+  }
+  
+  @Benchmark
+  public void compact() throws IOException {
+    mJournal.compact(mProgramIds);
+  }
+  
+  @Benchmark
+  public MarkingStore load() throws IOException {
+    MarkingStore store = new MarkingStore();
+    mJournal.load(store);
+    
+    return store;
+  }
+  
+  @Benchmark
+  public void append() throws IOException {
+    mJournal.append(mBatchOps, mBatchIds, BATCH);
+    
+    /* Keep the journal from growing, like the persister does */
+    if(mJournal.needsCompaction(mProgramIds.length)) {
+      mJournal.compact(mProgramIds);
+    }
+  }
+}